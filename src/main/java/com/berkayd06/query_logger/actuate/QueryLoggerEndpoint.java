@@ -0,0 +1,154 @@
+package com.berkayd06.query_logger.actuate;
+
+import com.berkayd06.query_logger.config.QueryLoggerProperties;
+import com.berkayd06.query_logger.config.QueryLoggerPropertiesResolver;
+import com.berkayd06.query_logger.core.QueryLoggerSettings;
+import com.berkayd06.query_logger.core.QueryLoggingDataSource;
+import com.berkayd06.query_logger.stats.SlowQueryStore;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Endpoint(id = "querylogger")
+public class QueryLoggerEndpoint {
+
+    private final Map<String, DataSource> dataSources;
+    private final QueryLoggerPropertiesResolver resolver;
+
+    public QueryLoggerEndpoint(Map<String, DataSource> dataSources, QueryLoggerPropertiesResolver resolver) {
+        this.dataSources = dataSources;
+        this.resolver = resolver;
+    }
+
+    @ReadOperation
+    public Map<String, Object> report() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Map.Entry<String, QueryLoggingDataSource> entry : select(null).entrySet()) {
+            result.put(entry.getKey(), report(entry.getValue()));
+        }
+        return result;
+    }
+
+    @ReadOperation
+    public Map<String, Object> dataSource(@Selector String dataSource) {
+        return report(select(dataSource).get(dataSource));
+    }
+
+    @WriteOperation
+    public Map<String, Object> configure(@Nullable String dataSource, @Nullable Long logThresholdMs,
+                                         @Nullable Long cancelThresholdMs, @Nullable Boolean cancelEnabled,
+                                         @Nullable Boolean onlySlow, @Nullable Double sampleRate,
+                                         @Nullable Boolean logParams, @Nullable Boolean logQueries,
+                                         @Nullable Long revertAfterMs) {
+        Map<String, Object> overrides = new LinkedHashMap<>();
+        putIfSet(overrides, "log-threshold-ms", logThresholdMs);
+        putIfSet(overrides, "cancel-threshold-ms", cancelThresholdMs);
+        putIfSet(overrides, "cancel-enabled", cancelEnabled);
+        putIfSet(overrides, "only-slow", onlySlow);
+        putIfSet(overrides, "sample-rate", sampleRate);
+        putIfSet(overrides, "log-params", logParams);
+        putIfSet(overrides, "log-queries", logQueries);
+        if (overrides.isEmpty()) {
+            throw new InvalidEndpointRequestException("No settings to change", "No settings to change");
+        }
+        long revertMs = revertAfterMs != null ? Math.max(0L, revertAfterMs) : 0L;
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Map.Entry<String, QueryLoggingDataSource> entry : select(dataSource).entrySet()) {
+            QueryLoggerProperties props = resolver.bind(entry.getKey(), overrides);
+            entry.getValue().reconfigure(props, revertMs);
+            result.put(entry.getKey(), describe(entry.getValue()));
+        }
+        return result;
+    }
+
+    @DeleteOperation
+    public Map<String, Object> revert(@Nullable String dataSource) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Map.Entry<String, QueryLoggingDataSource> entry : select(dataSource).entrySet()) {
+            entry.getValue().revert();
+            result.put(entry.getKey(), describe(entry.getValue()));
+        }
+        return result;
+    }
+
+    private Map<String, QueryLoggingDataSource> select(String name) {
+        Map<String, QueryLoggingDataSource> selected = QueryLoggingDataSource.findAll(dataSources);
+        if (name != null) {
+            QueryLoggingDataSource dataSource = selected.get(name);
+            selected.clear();
+            if (dataSource != null) {
+                selected.put(name, dataSource);
+            }
+        }
+        if (name != null && selected.isEmpty()) {
+            String message = "No query-logging DataSource named '" + name + "'";
+            throw new InvalidEndpointRequestException(message, message);
+        }
+        return selected;
+    }
+
+    private static Map<String, Object> report(QueryLoggingDataSource dataSource) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", describe(dataSource));
+        SlowQueryStore store = dataSource.getSlowQueries();
+        if (store != null) {
+            Map<String, Object> slow = new LinkedHashMap<>();
+            slow.put("recorded", store.getRecordedCount());
+            slow.put("windowStart", Instant.ofEpochMilli(store.getWindowStartMillis()).toString());
+            slow.put("windowMs", store.getWindowMs());
+            slow.put("top", describe(store.getTop()));
+            slow.put("previousTop", describe(store.getPreviousTop()));
+            slow.put("recent", describe(store.getRecent()));
+            report.put("slowQueries", slow);
+        }
+        return report;
+    }
+
+    private static List<Map<String, Object>> describe(List<SlowQueryStore.SlowQuery> queries) {
+        List<Map<String, Object>> result = new ArrayList<>(queries.size());
+        for (SlowQueryStore.SlowQuery query : queries) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("timestamp", Instant.ofEpochMilli(query.getTimestampMillis()).toString());
+            item.put("durationMs", Math.round(query.getDurationNanos() / 1_000.0) / 1_000.0);
+            item.put("origin", query.getOrigin());
+            item.put("fingerprint", query.getFingerprint());
+            item.put("sql", query.getSql());
+            if (query.getBoundSql() != null) {
+                item.put("boundSql", query.getBoundSql());
+            }
+            item.put("rows", query.getRows());
+            item.put("failed", query.isFailed());
+            item.put("canceled", query.isCanceled());
+            result.add(item);
+        }
+        return result;
+    }
+
+    private static Map<String, Object> describe(QueryLoggingDataSource dataSource) {
+        QueryLoggerSettings settings = dataSource.getSettings();
+        Map<String, Object> description = new LinkedHashMap<>(settings.toMap());
+        description.put("overridden", settings != dataSource.getBaselineSettings());
+        long revertAt = dataSource.getRevertAtMillis();
+        if (revertAt > 0) {
+            description.put("revertAt", Instant.ofEpochMilli(revertAt).toString());
+        }
+        return description;
+    }
+
+    private static void putIfSet(Map<String, Object> overrides, String key, Object value) {
+        if (value != null) {
+            overrides.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.berkayd06.query_logger.analysis;
+
+import com.berkayd06.query_logger.journal.QueryJournalReader;
+import com.berkayd06.query_logger.stats.FingerprintStats;
+import com.berkayd06.query_logger.stats.LatencyHistogram;
+import com.berkayd06.query_logger.stats.QueryStatistics;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+public final class QueryLogAnalyzer {
+
+    public enum SortOrder { TOTAL, COUNT, AVG, P99, MAX, CANCEL_RATE, ERRORS }
+
+    private final QueryStatistics statistics;
+    private final int maxFingerprints;
+    private final int threads;
+    private final long chunkBytes;
+    private final LongAdder lines = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder malformed = new LongAdder();
+    private final LongAdder sampled = new LongAdder();
+    private final LongAdder tasks = new LongAdder();
+
+    public QueryLogAnalyzer(int maxFingerprints, int threads, long chunkBytes) {
+        this.statistics = new QueryStatistics(maxFingerprints, true);
+        this.maxFingerprints = maxFingerprints;
+        this.threads = Math.max(1, threads);
+        this.chunkBytes = Math.max(1L << 20, chunkBytes);
+    }
+
+    public void analyze(List<File> inputs) throws IOException {
+        List<Callable<Void>> work = new ArrayList<>();
+        for (File input : inputs) {
+            if (QueryJournalReader.isJournal(input)) {
+                QueryJournalReader reader = new QueryJournalReader(input);
+                for (long segment : reader.getSegments()) {
+                    work.add(() -> readJournal(reader, segment));
+                }
+            } else if (input.getName().endsWith(".gz")) {
+                work.add(() -> readCompressed(input));
+            } else if (input.isFile()) {
+                long length = input.length();
+                for (long start = 0; start < length; start += chunkBytes) {
+                    long from = start;
+                    long to = Math.min(length, start + chunkBytes);
+                    work.add(() -> readChunk(input, from, to));
+                }
+            } else {
+                throw new IOException("Not a log file or query journal: " + input);
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, work.size())), r -> {
+            Thread t = new Thread(r, "query-log-analyzer");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            for (Future<Void> future : executor.invokeAll(work)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Analysis interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Void readChunk(File file, long from, long to) throws IOException {
+        QueryLogParser parser = new QueryLogParser(new QueryStatistics(maxFingerprints, true));
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long position = from > 0 ? from - 1 : 0;
+            channel.position(position);
+            parser.scan(Channels.newInputStream(channel), position, to, from > 0);
+        }
+        finish(parser);
+        return null;
+    }
+
+    private Void readCompressed(File file) throws IOException {
+        QueryLogParser parser = new QueryLogParser(new QueryStatistics(maxFingerprints, true));
+        try (InputStream in = new GZIPInputStream(
+                new BufferedInputStream(new FileInputStream(file), 1 << 16), 1 << 16)) {
+            parser.scan(in, 0L, Long.MAX_VALUE, false);
+        }
+        finish(parser);
+        return null;
+    }
+
+    private Void readJournal(QueryJournalReader reader, long segment) throws IOException {
+        QueryLogParser parser = new QueryLogParser(new QueryStatistics(maxFingerprints, true));
+        reader.readSegment(segment, null, record -> {
+            parser.record(record.getSql(), record.getOrigin(), record.getDurationNanos(), record.isFailed(),
+                record.isCanceled(), record.getRows());
+            return true;
+        });
+        finish(parser);
+        return null;
+    }
+
+    private void finish(QueryLogParser parser) {
+        statistics.merge(parser.getStatistics());
+        lines.add(parser.getLines());
+        queries.add(parser.getQueries());
+        malformed.add(parser.getMalformed());
+        sampled.add(parser.getSampled());
+        tasks.increment();
+    }
+
+    public QueryStatistics getStatistics() { return statistics; }
+    public long getLineCount() { return lines.sum(); }
+    public long getQueryCount() { return queries.sum(); }
+    public long getMalformedCount() { return malformed.sum(); }
+    public long getSampledCount() { return sampled.sum(); }
+    public long getTaskCount() { return tasks.sum(); }
+
+    public List<FingerprintStats.Snapshot> top(SortOrder order, int limit) {
+        List<FingerprintStats.Snapshot> snapshots = statistics.snapshot(false);
+        snapshots.sort(comparator(order).reversed());
+        return limit > 0 && snapshots.size() > limit ? snapshots.subList(0, limit) : snapshots;
+    }
+
+    private static Comparator<FingerprintStats.Snapshot> comparator(SortOrder order) {
+        switch (order) {
+            case COUNT: return Comparator.comparingLong(FingerprintStats.Snapshot::getCount);
+            case AVG: return Comparator.comparingLong(FingerprintStats.Snapshot::getAvgNanos);
+            case P99: return Comparator.comparingLong(s -> s.getLatencies().getP99Nanos());
+            case MAX: return Comparator.comparingLong(FingerprintStats.Snapshot::getMaxNanos);
+            case CANCEL_RATE: return Comparator.comparingDouble(QueryLogAnalyzer::cancelRate);
+            case ERRORS: return Comparator.comparingLong(FingerprintStats.Snapshot::getErrorCount);
+            default: return Comparator.comparingLong(FingerprintStats.Snapshot::getTotalNanos);
+        }
+    }
+
+    private static double cancelRate(FingerprintStats.Snapshot snapshot) {
+        return snapshot.getCount() == 0 ? 0.0 : (double) snapshot.getCancelCount() / snapshot.getCount();
+    }
+
+    public void report(PrintStream out, SortOrder order, int limit, long elapsedMs) {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("event=sql_analysis lines=").append(getLineCount())
+          .append(" queries=").append(getQueryCount())
+          .append(" malformed=").append(getMalformedCount())
+          .append(" sampled=").append(getSampledCount())
+          .append(" fingerprints=").append(statistics.size())
+          .append(" tasks=").append(getTaskCount())
+          .append(" elapsed_ms=").append(elapsedMs);
+        out.println(sb);
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : statistics.snapshotOrigins(false).entrySet()) {
+            sb.setLength(0);
+            sb.append("event=sql_latency origin=").append(entry.getKey())
+              .append(" count=").append(entry.getValue().getTotalCount());
+            appendPercentiles(sb, entry.getValue());
+            out.println(sb);
+        }
+        int rank = 0;
+        for (FingerprintStats.Snapshot snapshot : top(order, limit)) {
+            sb.setLength(0);
+            sb.append("event=sql_fingerprint rank=").append(++rank)
+              .append(" count=").append(snapshot.getCount())
+              .append(" total_ms=").append(millis(snapshot.getTotalNanos()))
+              .append(" avg_ms=").append(millis(snapshot.getAvgNanos()))
+              .append(" max_ms=").append(millis(snapshot.getMaxNanos()));
+            appendPercentiles(sb, snapshot.getLatencies());
+            sb.append(" errors=").append(snapshot.getErrorCount())
+              .append(" canceled=").append(snapshot.getCancelCount())
+              .append(" cancel_rate=").append(String.format(Locale.ROOT, "%.4f", cancelRate(snapshot)))
+              .append(" rows=").append(snapshot.getRowCount())
+              .append(" fingerprint=\"").append(snapshot.getFingerprint()).append('"');
+            out.println(sb);
+        }
+        out.flush();
+    }
+
+    private static void appendPercentiles(StringBuilder sb, LatencyHistogram.Snapshot latencies) {
+        sb.append(" p50_ms=").append(millis(latencies.getP50Nanos()))
+          .append(" p95_ms=").append(millis(latencies.getP95Nanos()))
+          .append(" p99_ms=").append(millis(latencies.getP99Nanos()))
+          .append(" p999_ms=").append(millis(latencies.getP999Nanos()));
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    public static void main(String[] args) throws IOException {
+        PrintStream out = System.out;
+        if (args.length == 0 || "--help".equals(args[0])) {
+            out.println("Usage: QueryLogAnalyzer <log-file|log.gz|journal-dir>... [--threads=<n>] [--chunk-mb=<mb>]");
+            out.println("       [--top=<n>] [--sort=total|count|avg|p99|max|cancel_rate|errors] [--max-fingerprints=<n>]");
+            return;
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        long chunkMb = 64;
+        int top = 20;
+        SortOrder order = SortOrder.TOTAL;
+        int maxFingerprints = 10_000;
+        List<File> inputs = new ArrayList<>();
+        for (String arg : args) {
+            String value = arg.indexOf('=') > 0 ? arg.substring(arg.indexOf('=') + 1) : null;
+            if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(value);
+            } else if (arg.startsWith("--chunk-mb=")) {
+                chunkMb = Long.parseLong(value);
+            } else if (arg.startsWith("--top=")) {
+                top = Integer.parseInt(value);
+            } else if (arg.startsWith("--sort=")) {
+                order = SortOrder.valueOf(value.replace('-', '_').toUpperCase(Locale.ROOT));
+            } else if (arg.startsWith("--max-fingerprints=")) {
+                maxFingerprints = Integer.parseInt(value);
+            } else if (arg.startsWith("--")) {
+                System.err.println("Unknown option: " + arg);
+                return;
+            } else {
+                inputs.add(new File(arg));
+            }
+        }
+        long started = System.nanoTime();
+        QueryLogAnalyzer analyzer = new QueryLogAnalyzer(maxFingerprints, threads, chunkMb * 1024L * 1024L);
+        analyzer.analyze(inputs);
+        analyzer.report(out, order, top, (System.nanoTime() - started) / 1_000_000L);
+    }
+}
@@ -0,0 +1,240 @@
+package com.berkayd06.query_logger.analysis;
+
+import com.berkayd06.query_logger.stats.QueryStatistics;
+import com.berkayd06.query_logger.util.SqlFingerprint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+final class QueryLogParser {
+
+    private static final byte[] EVENT = bytes("event=sql_query");
+    private static final byte[] ORIGIN = bytes(" origin=");
+    private static final byte[] DURATION_MS = bytes(" duration_ms=");
+    private static final byte[] CANCELED = bytes(" canceled=true");
+    private static final byte[] FAILED = bytes(" failed=true");
+    private static final byte[] SQL = bytes(" sql=\"");
+    private static final byte[] ERROR_END = bytes("\" ex=");
+    private static final byte[] ROWS_FETCHED = bytes(" rows_fetched=");
+    private static final byte[] ROWS = bytes(" rows=");
+    private static final byte[] SAMPLE_RATE = bytes(" sample_rate=");
+    private static final byte[][] SQL_ENDS = {
+        bytes("\" params="), bytes("\" batch_size="), bytes("\" rows_fetched="), bytes("\" sample_rate=")
+    };
+    private static final int FINGERPRINT_CACHE_SIZE = 4096;
+
+    private final QueryStatistics statistics;
+    private final Map<String, String> fingerprints = new HashMap<>();
+    private final Map<String, String> origins = new HashMap<>();
+    private byte[] buffer = new byte[1 << 16];
+    private long lines;
+    private long queries;
+    private long malformed;
+    private long sampled;
+    private double weightCarry;
+
+    QueryLogParser(QueryStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    void scan(InputStream in, long position, long end, boolean skipPartial) throws IOException {
+        byte[] buf = buffer;
+        long base = position;
+        int start = 0;
+        int filled = 0;
+        boolean skip = skipPartial;
+        while (true) {
+            if (filled == buf.length) {
+                if (start > 0) {
+                    System.arraycopy(buf, start, buf, 0, filled - start);
+                    base += start;
+                    filled -= start;
+                    start = 0;
+                } else {
+                    buf = buffer = Arrays.copyOf(buf, buf.length << 1);
+                }
+            }
+            int n = in.read(buf, filled, buf.length - filled);
+            if (n < 0) {
+                if (filled > start && !skip && base + start < end) {
+                    line(buf, start, filled);
+                }
+                return;
+            }
+            int i = filled;
+            filled += n;
+            for (; i < filled; i++) {
+                if (buf[i] != '\n') continue;
+                if (base + start >= end) return;
+                if (skip) {
+                    skip = false;
+                } else {
+                    line(buf, start, i);
+                }
+                start = i + 1;
+            }
+        }
+    }
+
+    void line(byte[] buf, int from, int to) {
+        lines++;
+        if (to > from && buf[to - 1] == '\r') {
+            to--;
+        }
+        int event = indexOf(buf, from, to, EVENT);
+        if (event < 0) return;
+        int sqlStart = indexOf(buf, event, to, SQL);
+        int durationStart = indexOf(buf, event, sqlStart < 0 ? to : sqlStart, DURATION_MS);
+        if (sqlStart < 0 || durationStart < 0) {
+            malformed++;
+            return;
+        }
+        sqlStart += SQL.length;
+        int sqlEnd = indexOf(buf, sqlStart, to, ERROR_END);
+        boolean failed = sqlEnd >= 0;
+        if (!failed) {
+            sqlEnd = sqlEnd(buf, sqlStart, to);
+            failed = indexOf(buf, event, sqlStart, FAILED) >= 0;
+        }
+        long durationNanos = parseMillisAsNanos(buf, durationStart + DURATION_MS.length, sqlStart);
+        if (sqlEnd < 0 || durationNanos < 0) {
+            malformed++;
+            return;
+        }
+        boolean canceled = indexOf(buf, event, sqlStart, CANCELED) >= 0;
+        long rows = rows(buf, event, sqlStart, sqlEnd, to);
+        String sql = new String(buf, sqlStart, sqlEnd - sqlStart, StandardCharsets.UTF_8);
+        long weight = weight(buf, sqlEnd, to);
+        statistics.record(fingerprint(sql), origin(buf, event, sqlStart), durationNanos, failed, canceled, rows,
+            weight);
+        queries++;
+    }
+
+    private long weight(byte[] buf, int from, int to) {
+        int start = indexOf(buf, from, to, SAMPLE_RATE);
+        if (start < 0) return 1L;
+        long rateMicros = parseMillisAsNanos(buf, start + SAMPLE_RATE.length, to);
+        if (rateMicros <= 0 || rateMicros >= 1_000_000L) return 1L;
+        sampled++;
+        double scaled = 1_000_000.0 / rateMicros + weightCarry;
+        long weight = (long) scaled;
+        weightCarry = scaled - weight;
+        return weight;
+    }
+
+    void record(String sql, String origin, long durationNanos, boolean failed, boolean canceled, long rows) {
+        lines++;
+        statistics.record(fingerprint(sql), origin, durationNanos, failed, canceled, rows);
+        queries++;
+    }
+
+    private String fingerprint(String sql) {
+        String fingerprint = fingerprints.get(sql);
+        if (fingerprint == null) {
+            if (fingerprints.size() >= FINGERPRINT_CACHE_SIZE) {
+                fingerprints.clear();
+            }
+            fingerprint = SqlFingerprint.of(sql);
+            fingerprints.put(sql, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    private String origin(byte[] buf, int from, int to) {
+        int start = indexOf(buf, from, to, ORIGIN);
+        if (start < 0) return null;
+        start += ORIGIN.length;
+        int end = start;
+        while (end < to && buf[end] != ' ') {
+            end++;
+        }
+        String origin = new String(buf, start, end - start, StandardCharsets.US_ASCII);
+        String cached = origins.putIfAbsent(origin, origin);
+        return cached != null ? cached : origin;
+    }
+
+    private static int sqlEnd(byte[] buf, int from, int to) {
+        int end = -1;
+        for (byte[] marker : SQL_ENDS) {
+            int found = indexOf(buf, from, end < 0 ? to : end, marker);
+            if (found >= 0) {
+                end = found;
+            }
+        }
+        if (end >= 0) return end;
+        for (int i = to - 1; i >= from; i--) {
+            if (buf[i] == '"') return i;
+        }
+        return -1;
+    }
+
+    private static long rows(byte[] buf, int event, int sqlStart, int sqlEnd, int to) {
+        int start = indexOf(buf, sqlEnd, to, ROWS_FETCHED);
+        if (start >= 0) {
+            return parseLong(buf, start + ROWS_FETCHED.length, to);
+        }
+        start = indexOf(buf, event, sqlStart, ROWS);
+        return start >= 0 ? parseLong(buf, start + ROWS.length, sqlStart) : 0L;
+    }
+
+    static long parseMillisAsNanos(byte[] buf, int from, int to) {
+        long whole = 0;
+        long fraction = 0;
+        long scale = 1_000_000L;
+        boolean digits = false;
+        boolean dot = false;
+        for (int i = from; i < to; i++) {
+            byte b = buf[i];
+            if (b >= '0' && b <= '9') {
+                digits = true;
+                if (!dot) {
+                    whole = whole * 10 + (b - '0');
+                } else if (scale > 1) {
+                    scale /= 10;
+                    fraction += (b - '0') * scale;
+                }
+            } else if (b == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        return digits ? whole * 1_000_000L + fraction : -1L;
+    }
+
+    private static long parseLong(byte[] buf, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to && buf[i] >= '0' && buf[i] <= '9'; i++) {
+            value = value * 10 + (buf[i] - '0');
+        }
+        return value;
+    }
+
+    static int indexOf(byte[] buf, int from, int to, byte[] pattern) {
+        byte first = pattern[0];
+        int last = to - pattern.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            if (buf[i] != first) continue;
+            for (int j = 1; j < pattern.length; j++) {
+                if (buf[i + j] != pattern[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    QueryStatistics getStatistics() { return statistics; }
+    long getLines() { return lines; }
+    long getQueries() { return queries; }
+    long getMalformed() { return malformed; }
+    long getSampled() { return sampled; }
+}
@@ -1,18 +1,28 @@
 package com.berkayd06.query_logger.config;
 
+import com.berkayd06.query_logger.actuate.QueryLoggerEndpoint;
+import com.berkayd06.query_logger.core.QueryLoggerRuntime;
 import com.berkayd06.query_logger.core.QueryLoggingDataSource;
 import com.berkayd06.query_logger.inspector.HibernateSqlCapturingInspector;
+import com.berkayd06.query_logger.metrics.QueryLoggerMetrics;
+import com.berkayd06.query_logger.web.QueryScopeFilter;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.*;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
 
 import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Map;
 
 @Configuration
 @EnableConfigurationProperties(QueryLoggerProperties.class)
@@ -27,16 +37,68 @@ public class QueryLoggerAutoConfiguration {
     @Bean
     @ConditionalOnBean(DataSource.class)
     @ConditionalOnProperty(prefix = "querylogger", name = "wrapDataSource", havingValue = "true", matchIfMissing = true)
-    public static BeanPostProcessor queryLoggingDataSourcePostProcessor(QueryLoggerProperties props) {
-        return new BeanPostProcessor() {
-            @Override
-            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
-                if ("dataSource".equals(beanName) && bean instanceof DataSource && !(bean instanceof QueryLoggingDataSource)) {
-                    return new QueryLoggingDataSource((DataSource) bean, props);
-                }
+    public static BeanPostProcessor queryLoggingDataSourcePostProcessor(QueryLoggerProperties props,
+                                                                       Environment environment) {
+        return new QueryLoggingDataSourcePostProcessor(props, Binder.get(environment));
+    }
+
+    static final class QueryLoggingDataSourcePostProcessor implements BeanPostProcessor {
+
+        private static final String[] DELEGATING_DATA_SOURCES = {
+            "org.springframework.jdbc.datasource.DelegatingDataSource",
+            "org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource"
+        };
+
+        private final QueryLoggerProperties props;
+        private final QueryLoggerPropertiesResolver resolver;
+        private QueryLoggerRuntime runtime;
+
+        QueryLoggingDataSourcePostProcessor(QueryLoggerProperties props, Binder binder) {
+            this.props = props;
+            this.resolver = new QueryLoggerPropertiesResolver(props, binder);
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+            if (!(bean instanceof DataSource) || bean instanceof QueryLoggingDataSource) {
                 return bean;
             }
-        };
+            DataSource dataSource = (DataSource) bean;
+            if ((isDelegating(dataSource) || wrapsQueryLogging(dataSource)) && !resolver.isWrapRequested(beanName)) {
+                return bean;
+            }
+            QueryLoggerProperties resolved = resolver.resolve(beanName);
+            if (!resolved.isEnabled() || !resolved.isWrapDataSource()) {
+                return bean;
+            }
+            return new QueryLoggingDataSource(dataSource, resolved, runtime(), beanName);
+        }
+
+        static boolean isDelegating(DataSource dataSource) {
+            for (Class<?> type = dataSource.getClass(); type != null; type = type.getSuperclass()) {
+                for (String name : DELEGATING_DATA_SOURCES) {
+                    if (name.equals(type.getName())) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private static boolean wrapsQueryLogging(DataSource dataSource) {
+            try {
+                return dataSource.isWrapperFor(QueryLoggingDataSource.class);
+            } catch (SQLException | RuntimeException e) {
+                return false;
+            }
+        }
+
+        private synchronized QueryLoggerRuntime runtime() {
+            if (runtime == null) {
+                runtime = new QueryLoggerRuntime(props);
+            }
+            return runtime;
+        }
     }
 
     @Bean
@@ -44,4 +106,61 @@ public class QueryLoggerAutoConfiguration {
     public HibernateSqlCapturingInspector statementInspector(QueryLoggerProperties props) {
         return new HibernateSqlCapturingInspector(props);
     }
+
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+    @ConditionalOnProperty(prefix = "querylogger.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+    static class QueryLoggerMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnBean(DataSource.class)
+        @ConditionalOnMissingBean
+        public QueryLoggerMetrics queryLoggerMetrics(Map<String, DataSource> dataSources, QueryLoggerProperties props) {
+            return new QueryLoggerMetrics(dataSources, props.getMetrics().getMaxFingerprints());
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+    static class QueryLoggerEndpointConfiguration {
+
+        @Bean
+        @ConditionalOnBean(DataSource.class)
+        @ConditionalOnMissingBean
+        public QueryLoggerEndpoint queryLoggerEndpoint(Map<String, DataSource> dataSources, QueryLoggerProperties props,
+                                                       Environment environment) {
+            return new QueryLoggerEndpoint(dataSources, new QueryLoggerPropertiesResolver(props, Binder.get(environment)));
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = QueryLoggerRefreshListener.ENVIRONMENT_CHANGE_EVENT)
+    static class QueryLoggerRefreshConfiguration {
+
+        @Bean
+        @ConditionalOnBean(DataSource.class)
+        @ConditionalOnMissingBean
+        public QueryLoggerRefreshListener queryLoggerRefreshListener(Map<String, DataSource> dataSources,
+                                                                     QueryLoggerProperties props,
+                                                                     Environment environment) {
+            return new QueryLoggerRefreshListener(dataSources,
+                new QueryLoggerPropertiesResolver(props, Binder.get(environment)));
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "javax.servlet.Filter")
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnProperty(prefix = "querylogger.repeated-queries", name = "enabled", havingValue = "true")
+    static class QueryScopeFilterConfiguration {
+
+        @Bean
+        @ConditionalOnProperty(prefix = "querylogger.repeated-queries", name = "request-scope", havingValue = "true", matchIfMissing = true)
+        public FilterRegistrationBean<QueryScopeFilter> queryScopeFilter() {
+            FilterRegistrationBean<QueryScopeFilter> registration = new FilterRegistrationBean<>(new QueryScopeFilter());
+            registration.setName("queryScopeFilter");
+            registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+            return registration;
+        }
+    }
 }
\ No newline at end of file
@@ -10,6 +10,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
 import javax.sql.DataSource;
+import java.sql.SQLException;
 
 @Configuration
 @ConditionalOnProperty(prefix = "querylogger", name = "manual-config-example", havingValue = "true", matchIfMissing = false)
@@ -24,7 +25,10 @@ public class QueryLoggerManualConfiguration {
     @Primary
     public DataSource dataSource(
             @Qualifier("actualDataSource") DataSource actualDataSource,
-            QueryLoggerProperties properties) {
+            QueryLoggerProperties properties) throws SQLException {
+        if (actualDataSource.isWrapperFor(QueryLoggingDataSource.class)) {
+            return actualDataSource;
+        }
         return new QueryLoggingDataSource(actualDataSource, properties);
     }
-}
+}
\ No newline at end of file
@@ -1,12 +1,17 @@
 package com.berkayd06.query_logger.config;
 
+import com.berkayd06.query_logger.logging.AsyncQueryLogger;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @ConfigurationProperties("querylogger")
 
 public class QueryLoggerProperties {
     private boolean enabled = true;
     private boolean wrapDataSource = true;
+    private boolean logQueries = true;
 
     private long logThresholdMs = 200;
     private long cancelThresholdMs = 0;
@@ -14,16 +19,200 @@ public class QueryLoggerProperties {
     private boolean cancelEnabled = false;
     private boolean onlySlow = true;
     private boolean logParams = true;
+    private boolean logErrors = true;
     private LogFormat logFormat = LogFormat.FORMATTED;
     private double sampleRate = 1.0;
     private String loggerName = "com.berkayd06.querylogger";
     private String excludeSqlRegex;
+    private WrapMode wrapMode = WrapMode.DELEGATE;
+    private int batchSampleRows = 3;
+    private boolean trackResultSets = false;
     public enum LogFormat {
         SQL,
         FORMATTED,
         BOUND
     }
 
+    public enum SamplingMode {
+        HEAD,
+        TAIL
+    }
+
+    public enum WrapMode {
+        DELEGATE,
+        PROXY
+    }
+
+    public static class Async {
+        private boolean enabled = false;
+        private int bufferSize = 8192;
+        private AsyncQueryLogger.OverflowPolicy overflowPolicy = AsyncQueryLogger.OverflowPolicy.DROP;
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public int getBufferSize() { return bufferSize; }
+        public void setBufferSize(int bufferSize) { this.bufferSize = bufferSize; }
+        public AsyncQueryLogger.OverflowPolicy getOverflowPolicy() { return overflowPolicy; }
+        public void setOverflowPolicy(AsyncQueryLogger.OverflowPolicy overflowPolicy) { this.overflowPolicy = overflowPolicy; }
+    }
+    private Async async = new Async();
+
+    public static class FormatCache {
+        private boolean enabled = true;
+        private int maxEntries = 2048;
+        private long maxWeight = 4_000_000L;
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public int getMaxEntries() { return maxEntries; }
+        public void setMaxEntries(int maxEntries) { this.maxEntries = maxEntries; }
+        public long getMaxWeight() { return maxWeight; }
+        public void setMaxWeight(long maxWeight) { this.maxWeight = maxWeight; }
+    }
+    private FormatCache formatCache = new FormatCache();
+
+    public static class Filter {
+        private List<String> exclude = new ArrayList<>();
+        private List<String> include = new ArrayList<>();
+        public List<String> getExclude() { return exclude; }
+        public void setExclude(List<String> exclude) { this.exclude = exclude; }
+        public List<String> getInclude() { return include; }
+        public void setInclude(List<String> include) { this.include = include; }
+    }
+    private Filter filter = new Filter();
+
+    public static class Connections {
+        private boolean enabled = false;
+        private long acquireThresholdMs = 500;
+        private long leakThresholdMs = 0;
+        private boolean captureStack = false;
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public long getAcquireThresholdMs() { return acquireThresholdMs; }
+        public void setAcquireThresholdMs(long acquireThresholdMs) { this.acquireThresholdMs = acquireThresholdMs; }
+        public long getLeakThresholdMs() { return leakThresholdMs; }
+        public void setLeakThresholdMs(long leakThresholdMs) { this.leakThresholdMs = leakThresholdMs; }
+        public boolean isCaptureStack() { return captureStack; }
+        public void setCaptureStack(boolean captureStack) { this.captureStack = captureStack; }
+    }
+    private Connections connections = new Connections();
+
+    public static class Transactions {
+        private boolean enabled = false;
+        private long thresholdMs = 1000;
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public long getThresholdMs() { return thresholdMs; }
+        public void setThresholdMs(long thresholdMs) { this.thresholdMs = thresholdMs; }
+    }
+    private Transactions transactions = new Transactions();
+
+    public static class SlowQueries {
+        private boolean enabled = false;
+        private long thresholdMs = 0;
+        private int capacity = 100;
+        private int topN = 20;
+        private long windowMs = 300_000L;
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public long getThresholdMs() { return thresholdMs; }
+        public void setThresholdMs(long thresholdMs) { this.thresholdMs = thresholdMs; }
+        public int getCapacity() { return capacity; }
+        public void setCapacity(int capacity) { this.capacity = capacity; }
+        public int getTopN() { return topN; }
+        public void setTopN(int topN) { this.topN = topN; }
+        public long getWindowMs() { return windowMs; }
+        public void setWindowMs(long windowMs) { this.windowMs = windowMs; }
+    }
+    private SlowQueries slowQueries = new SlowQueries();
+
+    public static class Journal {
+        private boolean enabled = false;
+        private String directory = "query-journal";
+        private int segmentSizeMb = 64;
+        private int maxSegments = 16;
+        private int maxSqlEntries = 100_000;
+        private boolean captureParams = true;
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public String getDirectory() { return directory; }
+        public void setDirectory(String directory) { this.directory = directory; }
+        public int getSegmentSizeMb() { return segmentSizeMb; }
+        public void setSegmentSizeMb(int segmentSizeMb) { this.segmentSizeMb = segmentSizeMb; }
+        public int getMaxSegments() { return maxSegments; }
+        public void setMaxSegments(int maxSegments) { this.maxSegments = maxSegments; }
+        public int getMaxSqlEntries() { return maxSqlEntries; }
+        public void setMaxSqlEntries(int maxSqlEntries) { this.maxSqlEntries = maxSqlEntries; }
+        public boolean isCaptureParams() { return captureParams; }
+        public void setCaptureParams(boolean captureParams) { this.captureParams = captureParams; }
+    }
+    private Journal journal = new Journal();
+
+    public static class Stats {
+        private boolean enabled = false;
+        private int maxFingerprints = 1000;
+        private long reportIntervalMs = 60_000L;
+        private boolean resetOnReport = true;
+        private boolean histograms = true;
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public int getMaxFingerprints() { return maxFingerprints; }
+        public void setMaxFingerprints(int maxFingerprints) { this.maxFingerprints = maxFingerprints; }
+        public long getReportIntervalMs() { return reportIntervalMs; }
+        public void setReportIntervalMs(long reportIntervalMs) { this.reportIntervalMs = reportIntervalMs; }
+        public boolean isResetOnReport() { return resetOnReport; }
+        public void setResetOnReport(boolean resetOnReport) { this.resetOnReport = resetOnReport; }
+        public boolean isHistograms() { return histograms; }
+        public void setHistograms(boolean histograms) { this.histograms = histograms; }
+    }
+    private Stats stats = new Stats();
+
+    public static class Metrics {
+        private boolean enabled = true;
+        private int maxFingerprints = 100;
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public int getMaxFingerprints() { return maxFingerprints; }
+        public void setMaxFingerprints(int maxFingerprints) { this.maxFingerprints = maxFingerprints; }
+    }
+    private Metrics metrics = new Metrics();
+
+    public static class Sampling {
+        private SamplingMode mode = SamplingMode.HEAD;
+        private long keepRowsAbove = 0;
+        private boolean adaptive = false;
+        private double maxPerSecond = 100.0;
+        private double maxPerFingerprintPerSecond = 10.0;
+        private int maxFingerprints = 1000;
+        public SamplingMode getMode() { return mode; }
+        public void setMode(SamplingMode mode) { this.mode = mode; }
+        public long getKeepRowsAbove() { return keepRowsAbove; }
+        public void setKeepRowsAbove(long keepRowsAbove) { this.keepRowsAbove = keepRowsAbove; }
+        public boolean isAdaptive() { return adaptive; }
+        public void setAdaptive(boolean adaptive) { this.adaptive = adaptive; }
+        public double getMaxPerSecond() { return maxPerSecond; }
+        public void setMaxPerSecond(double maxPerSecond) { this.maxPerSecond = maxPerSecond; }
+        public double getMaxPerFingerprintPerSecond() { return maxPerFingerprintPerSecond; }
+        public void setMaxPerFingerprintPerSecond(double maxPerFingerprintPerSecond) { this.maxPerFingerprintPerSecond = maxPerFingerprintPerSecond; }
+        public int getMaxFingerprints() { return maxFingerprints; }
+        public void setMaxFingerprints(int maxFingerprints) { this.maxFingerprints = maxFingerprints; }
+    }
+    private Sampling sampling = new Sampling();
+
+    public static class RepeatedQueries {
+        private boolean enabled = false;
+        private int threshold = 10;
+        private boolean transactionScope = true;
+        private boolean requestScope = true;
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public int getThreshold() { return threshold; }
+        public void setThreshold(int threshold) { this.threshold = threshold; }
+        public boolean isTransactionScope() { return transactionScope; }
+        public void setTransactionScope(boolean transactionScope) { this.transactionScope = transactionScope; }
+        public boolean isRequestScope() { return requestScope; }
+        public void setRequestScope(boolean requestScope) { this.requestScope = requestScope; }
+    }
+    private RepeatedQueries repeatedQueries = new RepeatedQueries();
+
     public static class Vendor {
         public static class Postgresql {
             private long statementTimeoutMs = 0;
@@ -95,6 +284,9 @@ public class QueryLoggerProperties {
     public boolean isWrapDataSource() { return wrapDataSource; }
     public void setWrapDataSource(boolean wrapDataSource) { this.wrapDataSource = wrapDataSource; }
 
+    public boolean isLogQueries() { return logQueries; }
+    public void setLogQueries(boolean logQueries) { this.logQueries = logQueries; }
+
     @Deprecated
     public long getThresholdMs() { return logThresholdMs; }
 
@@ -128,6 +320,51 @@ public class QueryLoggerProperties {
     public LogFormat getLogFormat() { return logFormat; }
     public void setLogFormat(LogFormat logFormat) { this.logFormat = logFormat; }
 
+    public WrapMode getWrapMode() { return wrapMode; }
+    public void setWrapMode(WrapMode wrapMode) { this.wrapMode = wrapMode; }
+
+    public int getBatchSampleRows() { return batchSampleRows; }
+    public void setBatchSampleRows(int batchSampleRows) { this.batchSampleRows = batchSampleRows; }
+
+    public boolean isLogErrors() { return logErrors; }
+    public void setLogErrors(boolean logErrors) { this.logErrors = logErrors; }
+
+    public boolean isTrackResultSets() { return trackResultSets; }
+    public void setTrackResultSets(boolean trackResultSets) { this.trackResultSets = trackResultSets; }
+
+    public Async getAsync() { return async; }
+    public void setAsync(Async async) { this.async = async; }
+
+    public FormatCache getFormatCache() { return formatCache; }
+    public void setFormatCache(FormatCache formatCache) { this.formatCache = formatCache; }
+
+    public Filter getFilter() { return filter; }
+    public void setFilter(Filter filter) { this.filter = filter; }
+
+    public Connections getConnections() { return connections; }
+    public void setConnections(Connections connections) { this.connections = connections; }
+
+    public Transactions getTransactions() { return transactions; }
+    public void setTransactions(Transactions transactions) { this.transactions = transactions; }
+
+    public SlowQueries getSlowQueries() { return slowQueries; }
+    public void setSlowQueries(SlowQueries slowQueries) { this.slowQueries = slowQueries; }
+
+    public Journal getJournal() { return journal; }
+    public void setJournal(Journal journal) { this.journal = journal; }
+
+    public Stats getStats() { return stats; }
+    public void setStats(Stats stats) { this.stats = stats; }
+
+    public Metrics getMetrics() { return metrics; }
+    public void setMetrics(Metrics metrics) { this.metrics = metrics; }
+
+    public Sampling getSampling() { return sampling; }
+    public void setSampling(Sampling sampling) { this.sampling = sampling; }
+
+    public RepeatedQueries getRepeatedQueries() { return repeatedQueries; }
+    public void setRepeatedQueries(RepeatedQueries repeatedQueries) { this.repeatedQueries = repeatedQueries; }
+
     public Vendor getVendor() { return vendor; }
     public void setVendor(Vendor vendor) { this.vendor = vendor; }
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.berkayd06.query_logger.config;
+
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyName;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.util.Map;
+
+public final class QueryLoggerPropertiesResolver {
+
+    private static final ConfigurationPropertyName PREFIX = ConfigurationPropertyName.of("querylogger");
+    private static final ConfigurationPropertyName DATASOURCES = PREFIX.append("datasources");
+
+    private final QueryLoggerProperties defaults;
+    private final Binder binder;
+
+    public QueryLoggerPropertiesResolver(QueryLoggerProperties defaults, Binder binder) {
+        this.defaults = defaults;
+        this.binder = binder;
+    }
+
+    public QueryLoggerProperties resolve(String beanName) {
+        QueryLoggerProperties resolved = new QueryLoggerProperties();
+        if (!binder.bind(DATASOURCES.append(toPropertyKey(beanName)), Bindable.ofInstance(resolved)).isBound()) {
+            return defaults;
+        }
+        return bind(beanName);
+    }
+
+    public boolean isWrapRequested(String beanName) {
+        return binder.bind(DATASOURCES.append(toPropertyKey(beanName)).append("wrap-data-source"),
+            Bindable.of(Boolean.class)).orElse(Boolean.FALSE);
+    }
+
+    public QueryLoggerProperties bind(String beanName) {
+        QueryLoggerProperties resolved = new QueryLoggerProperties();
+        binder.bind(PREFIX, Bindable.ofInstance(resolved));
+        binder.bind(DATASOURCES.append(toPropertyKey(beanName)), Bindable.ofInstance(resolved));
+        return resolved;
+    }
+
+    public QueryLoggerProperties bind(String beanName, Map<String, ?> overrides) {
+        QueryLoggerProperties resolved = bind(beanName);
+        if (overrides != null && !overrides.isEmpty()) {
+            new Binder(new MapConfigurationPropertySource(overrides)).bind(ConfigurationPropertyName.EMPTY,
+                Bindable.ofInstance(resolved));
+        }
+        return resolved;
+    }
+
+    static String toPropertyKey(String beanName) {
+        StringBuilder sb = new StringBuilder(beanName.length() + 8);
+        for (int i = 0; i < beanName.length(); i++) {
+            char c = beanName.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                if (i > 0 && Character.isLowerCase(beanName.charAt(i - 1))) {
+                    sb.append('-');
+                }
+                sb.append(Character.toLowerCase(c));
+            } else if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                sb.append(c);
+            } else if (sb.length() > 0 && sb.charAt(sb.length() - 1) != '-') {
+                sb.append('-');
+            }
+        }
+        return sb.length() > 0 ? sb.toString() : "default";
+    }
+}
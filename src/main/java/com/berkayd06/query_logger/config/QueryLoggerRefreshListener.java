@@ -0,0 +1,35 @@
+package com.berkayd06.query_logger.config;
+
+import com.berkayd06.query_logger.core.QueryLoggingDataSource;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+public class QueryLoggerRefreshListener implements ApplicationListener<ApplicationEvent> {
+
+    static final String ENVIRONMENT_CHANGE_EVENT =
+        "org.springframework.cloud.context.environment.EnvironmentChangeEvent";
+
+    private final Map<String, DataSource> dataSources;
+    private final QueryLoggerPropertiesResolver resolver;
+
+    public QueryLoggerRefreshListener(Map<String, DataSource> dataSources, QueryLoggerPropertiesResolver resolver) {
+        this.dataSources = dataSources;
+        this.resolver = resolver;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (ENVIRONMENT_CHANGE_EVENT.equals(event.getClass().getName())) {
+            refresh();
+        }
+    }
+
+    public void refresh() {
+        for (Map.Entry<String, QueryLoggingDataSource> entry : QueryLoggingDataSource.findAll(dataSources).entrySet()) {
+            entry.getValue().refresh(resolver.bind(entry.getKey()));
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.berkayd06.query_logger.core;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+final class CancellationTimer {
+
+    private static final long HOUSEKEEPING_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    abstract static class Timeout {
+        private static final AtomicLongFieldUpdater<Timeout> SEQUENCE =
+            AtomicLongFieldUpdater.newUpdater(Timeout.class, "sequence");
+        private static final AtomicIntegerFieldUpdater<Timeout> QUEUED =
+            AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "queued");
+
+        private volatile long sequence;
+        private volatile int queued;
+        private volatile long deadlineNanos;
+        private Timeout nextPending;
+        private int heapIndex = -1;
+        private long heapDeadline;
+
+        protected abstract void expire();
+
+        private boolean isArmed(long seq) {
+            return (seq & 1L) != 0;
+        }
+    }
+
+    private static final class Holder {
+        static final CancellationTimer INSTANCE = new CancellationTimer();
+    }
+
+    static CancellationTimer shared() {
+        return Holder.INSTANCE;
+    }
+
+    private final AtomicReference<Timeout> pending = new AtomicReference<>();
+    private final Thread worker;
+    private Timeout[] heap = new Timeout[64];
+    private int size;
+    private volatile boolean idle;
+    private volatile long wakeAtNanos;
+
+    CancellationTimer() {
+        this(true);
+    }
+
+    CancellationTimer(boolean startWorker) {
+        this.worker = new Thread(this::run, "query-logger-cancel-timer");
+        this.worker.setDaemon(true);
+        if (startWorker) {
+            this.worker.start();
+        }
+    }
+
+    void arm(Timeout timeout, long delayNanos) {
+        long deadline = System.nanoTime() + delayNanos;
+        timeout.deadlineNanos = deadline;
+        long seq = timeout.sequence;
+        timeout.sequence = timeout.isArmed(seq) ? seq + 2 : seq + 1;
+        enqueue(timeout);
+        if (idle || deadline - wakeAtNanos < 0) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    boolean disarm(Timeout timeout) {
+        long seq = timeout.sequence;
+        if (timeout.isArmed(seq) && Timeout.SEQUENCE.compareAndSet(timeout, seq, seq + 1)) {
+            enqueue(timeout);
+            return true;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void enqueue(Timeout timeout) {
+        if (Timeout.QUEUED.compareAndSet(timeout, 0, 1)) {
+            Timeout head;
+            do {
+                head = pending.get();
+                timeout.nextPending = head;
+            } while (!pending.compareAndSet(head, timeout));
+        }
+    }
+
+    long advance(long now) {
+        transferPending();
+        return expireDue(now);
+    }
+
+    private void run() {
+        while (true) {
+            try {
+                long now = System.nanoTime();
+                long waitNanos = advance(now);
+                if (waitNanos < 0) {
+                    idle = true;
+                    if (pending.get() == null) {
+                        LockSupport.park(this);
+                    }
+                    idle = false;
+                } else {
+                    wakeAtNanos = now + waitNanos;
+                    if (pending.get() == null) {
+                        LockSupport.parkNanos(this, waitNanos);
+                    }
+                }
+            } catch (Throwable ignored) {
+            }
+        }
+    }
+
+    private void transferPending() {
+        Timeout timeout = pending.getAndSet(null);
+        while (timeout != null) {
+            Timeout next = timeout.nextPending;
+            timeout.nextPending = null;
+            Timeout.QUEUED.set(timeout, 0);
+            if (timeout.isArmed(timeout.sequence)) {
+                schedule(timeout, timeout.deadlineNanos);
+            } else if (timeout.heapIndex >= 0) {
+                remove(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    private long expireDue(long now) {
+        while (size > 0) {
+            Timeout head = heap[0];
+            long seq = head.sequence;
+            if (!head.isArmed(seq)) {
+                remove(head);
+                continue;
+            }
+            long deadline = head.deadlineNanos;
+            if (deadline != head.heapDeadline) {
+                schedule(head, deadline);
+                continue;
+            }
+            long remaining = deadline - now;
+            if (remaining > 0) {
+                return Math.min(remaining, HOUSEKEEPING_NANOS);
+            }
+            remove(head);
+            if (Timeout.SEQUENCE.compareAndSet(head, seq, seq + 1)) {
+                try {
+                    head.expire();
+                } catch (Throwable ignored) {
+                }
+            }
+        }
+        return -1L;
+    }
+
+    private void schedule(Timeout timeout, long deadline) {
+        int index = timeout.heapIndex;
+        if (index < 0) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size << 1);
+            }
+            timeout.heapDeadline = deadline;
+            timeout.heapIndex = size;
+            heap[size++] = timeout;
+            siftUp(timeout.heapIndex);
+            return;
+        }
+        long previous = timeout.heapDeadline;
+        timeout.heapDeadline = deadline;
+        if (deadline - previous < 0) {
+            siftUp(index);
+        } else {
+            siftDown(index);
+        }
+    }
+
+    private void remove(Timeout timeout) {
+        int index = timeout.heapIndex;
+        timeout.heapIndex = -1;
+        Timeout last = heap[--size];
+        heap[size] = null;
+        if (index == size) {
+            return;
+        }
+        heap[index] = last;
+        last.heapIndex = index;
+        siftDown(index);
+        if (heap[index] == last) {
+            siftUp(index);
+        }
+    }
+
+    private void siftUp(int index) {
+        Timeout timeout = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            Timeout above = heap[parent];
+            if (timeout.heapDeadline - above.heapDeadline >= 0) {
+                break;
+            }
+            heap[index] = above;
+            above.heapIndex = index;
+            index = parent;
+        }
+        heap[index] = timeout;
+        timeout.heapIndex = index;
+    }
+
+    private void siftDown(int index) {
+        Timeout timeout = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = (index << 1) + 1;
+            int right = child + 1;
+            if (right < size && heap[right].heapDeadline - heap[child].heapDeadline < 0) {
+                child = right;
+            }
+            Timeout below = heap[child];
+            if (timeout.heapDeadline - below.heapDeadline <= 0) {
+                break;
+            }
+            heap[index] = below;
+            below.heapIndex = index;
+            index = child;
+        }
+        heap[index] = timeout;
+        timeout.heapIndex = index;
+    }
+}
@@ -0,0 +1,160 @@
+package com.berkayd06.query_logger.core;
+
+import com.berkayd06.query_logger.util.QueryScope;
+import com.berkayd06.query_logger.vendor.VendorDialectHelper;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+final class ConnectionContext {
+
+    private static final long NOT_APPLIED = -1L;
+
+    private final Connection connection;
+    private final Map<Connection, Long> sessionTimeouts;
+    private final QueryLoggingDataSource.ConnectionLease lease;
+    private final QueryLoggingDataSource.TransactionTracker transaction;
+    private boolean autoCommitKnown;
+    private boolean autoCommit;
+    private long appliedTimeoutMs = NOT_APPLIED;
+    private boolean timeoutTransactionScoped;
+    private Connection physicalConnection;
+    private QueryScope transactionScope;
+
+    ConnectionContext(Connection connection, Map<Connection, Long> sessionTimeouts,
+                      QueryLoggingDataSource.ConnectionLease lease,
+                      QueryLoggingDataSource.TransactionTracker transaction) {
+        this.connection = connection;
+        this.sessionTimeouts = sessionTimeouts;
+        this.lease = lease;
+        this.transaction = transaction;
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    void onClose() {
+        finishTransaction("close");
+        if (lease != null) {
+            lease.release();
+        }
+    }
+
+    void onAutoCommitChanged(boolean newAutoCommit) {
+        if (autoCommitKnown && !autoCommit && newAutoCommit) {
+            onCommit();
+        }
+        if (!newAutoCommit && transaction != null) {
+            transaction.begin();
+        }
+        autoCommit = newAutoCommit;
+        autoCommitKnown = true;
+    }
+
+    void onCommit() {
+        finishTransaction("commit");
+        onTransactionEnd();
+    }
+
+    void onRollback() {
+        finishTransaction("rollback");
+        onTransactionEnd();
+    }
+
+    QueryLoggingDataSource.TransactionTracker activeTransaction() {
+        return transaction != null && !isAutoCommit() ? transaction : null;
+    }
+
+    private void finishTransaction(String outcome) {
+        if (transaction != null) {
+            transaction.finish(outcome);
+        }
+    }
+
+    private void onTransactionEnd() {
+        if (transactionScope != null) {
+            transactionScope.reset();
+        }
+        if (timeoutTransactionScoped) {
+            appliedTimeoutMs = NOT_APPLIED;
+            timeoutTransactionScoped = false;
+        }
+    }
+
+    void onSavepointRollback() {
+        if (timeoutTransactionScoped) {
+            appliedTimeoutMs = NOT_APPLIED;
+            timeoutTransactionScoped = false;
+        }
+    }
+
+    QueryScope transactionScope() {
+        if (isAutoCommit()) {
+            return null;
+        }
+        if (transactionScope == null) {
+            transactionScope = new QueryScope("transaction");
+        }
+        return transactionScope;
+    }
+
+    void ensureVendorTimeout(VendorDialectHelper.DatabaseVendor vendor, long timeoutMs) {
+        if (vendor == null || vendor == VendorDialectHelper.DatabaseVendor.UNKNOWN) {
+            return;
+        }
+        if (timeoutMs == appliedTimeoutMs) {
+            return;
+        }
+        if (timeoutMs <= 0 && sessionTimeouts.isEmpty()) {
+            appliedTimeoutMs = timeoutMs;
+            return;
+        }
+        boolean inTransaction = !isAutoCommit();
+        boolean transactionScoped = VendorDialectHelper.isTransactionScoped(vendor, inTransaction);
+        Connection physical = physicalConnection();
+        Long session = sessionTimeouts.get(physical);
+        long sessionMs = session != null ? session : 0L;
+        if (timeoutMs != sessionMs) {
+            VendorDialectHelper.applyStatementTimeout(connection, vendor, Math.max(0L, timeoutMs), inTransaction);
+            if (!transactionScoped) {
+                if (timeoutMs > 0) {
+                    sessionTimeouts.put(physical, timeoutMs);
+                } else {
+                    sessionTimeouts.remove(physical);
+                }
+            }
+        }
+        appliedTimeoutMs = timeoutMs;
+        timeoutTransactionScoped = transactionScoped;
+    }
+
+    private Connection physicalConnection() {
+        if (physicalConnection == null) {
+            physicalConnection = connection;
+            try {
+                if (connection.isWrapperFor(Connection.class)) {
+                    Connection unwrapped = connection.unwrap(Connection.class);
+                    if (unwrapped != null) {
+                        physicalConnection = unwrapped;
+                    }
+                }
+            } catch (SQLException | RuntimeException ignored) {
+            }
+        }
+        return physicalConnection;
+    }
+
+    private boolean isAutoCommit() {
+        if (!autoCommitKnown) {
+            try {
+                autoCommit = connection.getAutoCommit();
+                autoCommitKnown = true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+        return autoCommit;
+    }
+}
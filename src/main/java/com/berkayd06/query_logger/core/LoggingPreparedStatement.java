@@ -0,0 +1,414 @@
+package com.berkayd06.query_logger.core;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+
+public class LoggingPreparedStatement extends LoggingStatement implements PreparedStatement {
+
+    private final PreparedStatement delegate;
+
+    LoggingPreparedStatement(LoggingConnection connection, PreparedStatement delegate,
+                              QueryLoggingDataSource.StatementTracker tracker) {
+        super(connection, delegate, tracker);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public PreparedStatement getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        tracker.begin(null);
+        try {
+            return tracker.resultSet(this, delegate.executeQuery());
+        } catch (Throwable t) {
+            tracker.fail(t);
+            throw t;
+        } finally {
+            tracker.end();
+        }
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        tracker.begin(null);
+        try {
+            return tracker.updated(delegate.executeUpdate());
+        } catch (Throwable t) {
+            tracker.fail(t);
+            throw t;
+        } finally {
+            tracker.end();
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate() throws SQLException {
+        tracker.begin(null);
+        try {
+            return tracker.updated(delegate.executeLargeUpdate());
+        } catch (Throwable t) {
+            tracker.fail(t);
+            throw t;
+        } finally {
+            tracker.end();
+        }
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        tracker.begin(null);
+        try {
+            return tracker.executed(delegate.execute());
+        } catch (Throwable t) {
+            tracker.fail(t);
+            throw t;
+        } finally {
+            tracker.end();
+        }
+    }
+
+    @Override
+    public void addBatch() throws SQLException {
+        delegate.addBatch();
+        tracker.addBatch(null);
+    }
+
+    @Override
+    public void clearParameters() throws SQLException {
+        tracker.clearParams();
+        delegate.clearParameters();
+    }
+
+    @Override
+    public void setArray(int parameterIndex, Array x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setArray(parameterIndex, x);
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setAsciiStream(parameterIndex, x);
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setAsciiStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setAsciiStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setBigDecimal(parameterIndex, x);
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setBinaryStream(parameterIndex, x);
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setBinaryStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setBinaryStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, InputStream x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setBlob(parameterIndex, x);
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, Blob x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setBlob(parameterIndex, x);
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, InputStream x, long length) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setBlob(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setBoolean(parameterIndex, x);
+    }
+
+    @Override
+    public void setByte(int parameterIndex, byte x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setByte(parameterIndex, x);
+    }
+
+    @Override
+    public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setBytes(parameterIndex, x);
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
+        tracker.setParam(parameterIndex, reader);
+        delegate.setCharacterStream(parameterIndex, reader);
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
+        tracker.setParam(parameterIndex, reader);
+        delegate.setCharacterStream(parameterIndex, reader, length);
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
+        tracker.setParam(parameterIndex, reader);
+        delegate.setCharacterStream(parameterIndex, reader, length);
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Reader reader) throws SQLException {
+        tracker.setParam(parameterIndex, reader);
+        delegate.setClob(parameterIndex, reader);
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Clob x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setClob(parameterIndex, x);
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        tracker.setParam(parameterIndex, reader);
+        delegate.setClob(parameterIndex, reader, length);
+    }
+
+    @Override
+    public void setDate(int parameterIndex, Date x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setDate(parameterIndex, x);
+    }
+
+    @Override
+    public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setDate(parameterIndex, x, cal);
+    }
+
+    @Override
+    public void setDouble(int parameterIndex, double x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setDouble(parameterIndex, x);
+    }
+
+    @Override
+    public void setFloat(int parameterIndex, float x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setFloat(parameterIndex, x);
+    }
+
+    @Override
+    public void setInt(int parameterIndex, int x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setInt(parameterIndex, x);
+    }
+
+    @Override
+    public void setLong(int parameterIndex, long x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setLong(parameterIndex, x);
+    }
+
+    @Override
+    public void setNCharacterStream(int parameterIndex, Reader reader) throws SQLException {
+        tracker.setParam(parameterIndex, reader);
+        delegate.setNCharacterStream(parameterIndex, reader);
+    }
+
+    @Override
+    public void setNCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
+        tracker.setParam(parameterIndex, reader);
+        delegate.setNCharacterStream(parameterIndex, reader, length);
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, Reader reader) throws SQLException {
+        tracker.setParam(parameterIndex, reader);
+        delegate.setNClob(parameterIndex, reader);
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, NClob x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setNClob(parameterIndex, x);
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        tracker.setParam(parameterIndex, reader);
+        delegate.setNClob(parameterIndex, reader, length);
+    }
+
+    @Override
+    public void setNString(int parameterIndex, String x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setNString(parameterIndex, x);
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType) throws SQLException {
+        tracker.setParam(parameterIndex, null);
+        delegate.setNull(parameterIndex, sqlType);
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+        tracker.setParam(parameterIndex, null);
+        delegate.setNull(parameterIndex, sqlType, typeName);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setObject(parameterIndex, x);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setObject(parameterIndex, x, targetSqlType);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, SQLType targetSqlType) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setObject(parameterIndex, x, targetSqlType);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+    }
+
+    @Override
+    public void setRef(int parameterIndex, Ref x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setRef(parameterIndex, x);
+    }
+
+    @Override
+    public void setRowId(int parameterIndex, RowId x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setRowId(parameterIndex, x);
+    }
+
+    @Override
+    public void setSQLXML(int parameterIndex, SQLXML x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setSQLXML(parameterIndex, x);
+    }
+
+    @Override
+    public void setShort(int parameterIndex, short x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setShort(parameterIndex, x);
+    }
+
+    @Override
+    public void setString(int parameterIndex, String x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setString(parameterIndex, x);
+    }
+
+    @Override
+    public void setTime(int parameterIndex, Time x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setTime(parameterIndex, x);
+    }
+
+    @Override
+    public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setTime(parameterIndex, x, cal);
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setTimestamp(parameterIndex, x);
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setTimestamp(parameterIndex, x, cal);
+    }
+
+    @Override
+    public void setURL(int parameterIndex, URL x) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setURL(parameterIndex, x);
+    }
+
+    @Deprecated
+    @Override
+    public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        tracker.setParam(parameterIndex, x);
+        delegate.setUnicodeStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() throws SQLException {
+        return delegate.getMetaData();
+    }
+
+    @Override
+    public ParameterMetaData getParameterMetaData() throws SQLException {
+        return delegate.getParameterMetaData();
+    }
+}
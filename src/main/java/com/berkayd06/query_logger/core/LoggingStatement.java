@@ -0,0 +1,419 @@
+package com.berkayd06.query_logger.core;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+
+public class LoggingStatement implements Statement {
+
+    private final LoggingConnection connection;
+    private final Statement delegate;
+    final QueryLoggingDataSource.StatementTracker tracker;
+
+    LoggingStatement(LoggingConnection connection, Statement delegate,
+                     QueryLoggingDataSource.StatementTracker tracker) {
+        this.connection = connection;
+        this.delegate = delegate;
+        this.tracker = tracker;
+    }
+
+    public Statement getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public ResultSet executeQuery(String sql) throws SQLException {
+        tracker.begin(sql);
+        try {
+            return tracker.resultSet(this, delegate.executeQuery(sql));
+        } catch (Throwable t) {
+            tracker.fail(t);
+            throw t;
+        } finally {
+            tracker.end();
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql) throws SQLException {
+        tracker.begin(sql);
+        try {
+            return tracker.updated(delegate.executeUpdate(sql));
+        } catch (Throwable t) {
+            tracker.fail(t);
+            throw t;
+        } finally {
+            tracker.end();
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        tracker.begin(sql);
+        try {
+            return tracker.updated(delegate.executeUpdate(sql, autoGeneratedKeys));
+        } catch (Throwable t) {
+            tracker.fail(t);
+            throw t;
+        } finally {
+            tracker.end();
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        tracker.begin(sql);
+        try {
+            return tracker.updated(delegate.executeUpdate(sql, columnIndexes));
+        } catch (Throwable t) {
+            tracker.fail(t);
+            throw t;
+        } finally {
+            tracker.end();
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        tracker.begin(sql);
+        try {
+            return tracker.updated(delegate.executeUpdate(sql, columnNames));
+        } catch (Throwable t) {
+            tracker.fail(t);
+            throw t;
+        } finally {
+            tracker.end();
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql) throws SQLException {
+        tracker.begin(sql);
+        try {
+            return tracker.updated(delegate.executeLargeUpdate(sql));
+        } catch (Throwable t) {
+            tracker.fail(t);
+            throw t;
+        } finally {
+            tracker.end();
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        tracker.begin(sql);
+        try {
+            return tracker.updated(delegate.executeLargeUpdate(sql, autoGeneratedKeys));
+        } catch (Throwable t) {
+            tracker.fail(t);
+            throw t;
+        } finally {
+            tracker.end();
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        tracker.begin(sql);
+        try {
+            return tracker.updated(delegate.executeLargeUpdate(sql, columnIndexes));
+        } catch (Throwable t) {
+            tracker.fail(t);
+            throw t;
+        } finally {
+            tracker.end();
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+        tracker.begin(sql);
+        try {
+            return tracker.updated(delegate.executeLargeUpdate(sql, columnNames));
+        } catch (Throwable t) {
+            tracker.fail(t);
+            throw t;
+        } finally {
+            tracker.end();
+        }
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        tracker.begin(sql);
+        try {
+            return tracker.executed(delegate.execute(sql));
+        } catch (Throwable t) {
+            tracker.fail(t);
+            throw t;
+        } finally {
+            tracker.end();
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        tracker.begin(sql);
+        try {
+            return tracker.executed(delegate.execute(sql, autoGeneratedKeys));
+        } catch (Throwable t) {
+            tracker.fail(t);
+            throw t;
+        } finally {
+            tracker.end();
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        tracker.begin(sql);
+        try {
+            return tracker.executed(delegate.execute(sql, columnIndexes));
+        } catch (Throwable t) {
+            tracker.fail(t);
+            throw t;
+        } finally {
+            tracker.end();
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        tracker.begin(sql);
+        try {
+            return tracker.executed(delegate.execute(sql, columnNames));
+        } catch (Throwable t) {
+            tracker.fail(t);
+            throw t;
+        } finally {
+            tracker.end();
+        }
+    }
+
+    @Override
+    public void addBatch(String sql) throws SQLException {
+        delegate.addBatch(sql);
+        tracker.addBatch(sql);
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        tracker.beginBatch();
+        try {
+            return tracker.updated(delegate.executeBatch());
+        } catch (Throwable t) {
+            tracker.fail(t);
+            throw t;
+        } finally {
+            tracker.end();
+        }
+    }
+
+    @Override
+    public long[] executeLargeBatch() throws SQLException {
+        tracker.beginBatch();
+        try {
+            return tracker.updated(delegate.executeLargeBatch());
+        } catch (Throwable t) {
+            tracker.fail(t);
+            throw t;
+        } finally {
+            tracker.end();
+        }
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        return tracker.currentResultSet(this, delegate.getResultSet());
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        delegate.clearBatch();
+        tracker.clearBatch();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            delegate.close();
+        } finally {
+            tracker.close();
+        }
+    }
+
+    @Override
+    public int getMaxFieldSize() throws SQLException {
+        return delegate.getMaxFieldSize();
+    }
+
+    @Override
+    public void setMaxFieldSize(int max) throws SQLException {
+        delegate.setMaxFieldSize(max);
+    }
+
+    @Override
+    public int getMaxRows() throws SQLException {
+        return delegate.getMaxRows();
+    }
+
+    @Override
+    public void setMaxRows(int max) throws SQLException {
+        delegate.setMaxRows(max);
+    }
+
+    @Override
+    public long getLargeMaxRows() throws SQLException {
+        return delegate.getLargeMaxRows();
+    }
+
+    @Override
+    public void setLargeMaxRows(long max) throws SQLException {
+        delegate.setLargeMaxRows(max);
+    }
+
+    @Override
+    public void setEscapeProcessing(boolean enable) throws SQLException {
+        delegate.setEscapeProcessing(enable);
+    }
+
+    @Override
+    public int getQueryTimeout() throws SQLException {
+        return delegate.getQueryTimeout();
+    }
+
+    @Override
+    public void setQueryTimeout(int seconds) throws SQLException {
+        delegate.setQueryTimeout(seconds);
+    }
+
+    @Override
+    public void cancel() throws SQLException {
+        delegate.cancel();
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        return delegate.getWarnings();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        delegate.clearWarnings();
+    }
+
+    @Override
+    public void setCursorName(String name) throws SQLException {
+        delegate.setCursorName(name);
+    }
+
+    @Override
+    public int getUpdateCount() throws SQLException {
+        return delegate.getUpdateCount();
+    }
+
+    @Override
+    public long getLargeUpdateCount() throws SQLException {
+        return delegate.getLargeUpdateCount();
+    }
+
+    @Override
+    public boolean getMoreResults() throws SQLException {
+        tracker.moreResults(CLOSE_CURRENT_RESULT);
+        return delegate.getMoreResults();
+    }
+
+    @Override
+    public boolean getMoreResults(int current) throws SQLException {
+        tracker.moreResults(current);
+        return delegate.getMoreResults(current);
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        delegate.setFetchDirection(direction);
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        return delegate.getFetchDirection();
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        delegate.setFetchSize(rows);
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        return delegate.getFetchSize();
+    }
+
+    @Override
+    public int getResultSetConcurrency() throws SQLException {
+        return delegate.getResultSetConcurrency();
+    }
+
+    @Override
+    public int getResultSetType() throws SQLException {
+        return delegate.getResultSetType();
+    }
+
+    @Override
+    public int getResultSetHoldability() throws SQLException {
+        return delegate.getResultSetHoldability();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connection;
+    }
+
+    @Override
+    public ResultSet getGeneratedKeys() throws SQLException {
+        return delegate.getGeneratedKeys();
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return delegate.isClosed();
+    }
+
+    @Override
+    public void setPoolable(boolean poolable) throws SQLException {
+        delegate.setPoolable(poolable);
+    }
+
+    @Override
+    public boolean isPoolable() throws SQLException {
+        return delegate.isPoolable();
+    }
+
+    @Override
+    public void closeOnCompletion() throws SQLException {
+        delegate.closeOnCompletion();
+    }
+
+    @Override
+    public boolean isCloseOnCompletion() throws SQLException {
+        return delegate.isCloseOnCompletion();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        if (iface.isInstance(delegate)) {
+            return iface.cast(delegate);
+        }
+        return delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || iface.isInstance(delegate) || delegate.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,12 @@
+package com.berkayd06.query_logger.core;
+
+public interface QueryExecutionListener {
+
+    void onExecuted(String origin, String fingerprint, long durationNanos, boolean failed, boolean canceled);
+
+    default void onExcluded() {
+    }
+
+    default void onSampledOut() {
+    }
+}
@@ -0,0 +1,167 @@
+package com.berkayd06.query_logger.core;
+
+import com.berkayd06.query_logger.config.QueryLoggerProperties;
+import com.berkayd06.query_logger.journal.QueryJournal;
+import com.berkayd06.query_logger.logging.AsyncQueryLogger;
+import com.berkayd06.query_logger.logging.FastQueryLogger;
+import com.berkayd06.query_logger.logging.QueryLogger;
+import com.berkayd06.query_logger.stats.QueryStatistics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+public final class QueryLoggerRuntime implements AutoCloseable {
+
+    private static final class Registration {
+        final QueryStatistics statistics;
+        final String loggerName;
+
+        Registration(QueryStatistics statistics, String loggerName) {
+            this.statistics = statistics;
+            this.loggerName = loggerName;
+        }
+    }
+
+    private final QueryLogger queryLogger;
+    private final QueryJournal journal;
+    private final Map<File, QueryJournal> journals = new HashMap<>();
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService scheduler;
+    private Thread shutdownHook;
+    private boolean closed;
+
+    public QueryLoggerRuntime(QueryLoggerProperties props) {
+        this(createQueryLogger(props), props.getJournal());
+    }
+
+    public QueryLoggerRuntime(QueryLogger queryLogger) {
+        this(queryLogger, null);
+    }
+
+    private QueryLoggerRuntime(QueryLogger queryLogger, QueryLoggerProperties.Journal journal) {
+        this.queryLogger = queryLogger;
+        this.journal = journal != null && journal.isEnabled() ? getJournal(journal) : null;
+        if (queryLogger instanceof AutoCloseable) {
+            installShutdownHook();
+        }
+    }
+
+    public QueryJournal getJournal() {
+        return journal;
+    }
+
+    public synchronized QueryJournal getJournal(QueryLoggerProperties.Journal config) {
+        File directory = new File(config.getDirectory()).getAbsoluteFile();
+        if (journals.containsKey(directory)) {
+            return journals.get(directory);
+        }
+        QueryJournal opened = closed ? null : openJournal(queryLogger, directory, config);
+        journals.put(directory, opened);
+        if (opened != null) {
+            installShutdownHook();
+        }
+        return opened;
+    }
+
+    private static QueryJournal openJournal(QueryLogger queryLogger, File directory,
+                                            QueryLoggerProperties.Journal journal) {
+        try {
+            return new QueryJournal(directory,
+                (int) Math.min(Integer.MAX_VALUE, journal.getSegmentSizeMb() * 1024L * 1024L),
+                journal.getMaxSegments(), journal.getMaxSqlEntries());
+        } catch (IOException | RuntimeException e) {
+            queryLogger.logError("Query journal disabled, cannot open " + journal.getDirectory() + ": " + e);
+            return null;
+        }
+    }
+
+    public QueryLogger getQueryLogger() {
+        return queryLogger;
+    }
+
+    public synchronized ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "query-logger-scheduler");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return scheduler;
+    }
+
+    public void register(QueryStatistics statistics, String loggerName, long reportIntervalMs, boolean resetOnReport) {
+        registrations.add(new Registration(statistics, loggerName));
+        if (reportIntervalMs > 0) {
+            statistics.startReporting(getScheduler(), queryLogger, loggerName, reportIntervalMs, resetOnReport);
+        }
+        installShutdownHook();
+    }
+
+    public int getRegisteredCount() {
+        return registrations.size();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+            }
+        }
+        for (Registration registration : registrations) {
+            registration.statistics.close();
+            try {
+                registration.statistics.report(queryLogger, registration.loggerName, true);
+            } catch (Exception ignored) {
+            }
+        }
+        List<QueryJournal> opened;
+        synchronized (this) {
+            opened = new ArrayList<>(journals.values());
+        }
+        for (QueryJournal journal : opened) {
+            if (journal != null) {
+                journal.close();
+            }
+        }
+        if (queryLogger instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) queryLogger).close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private synchronized void installShutdownHook() {
+        if (shutdownHook != null || closed) return;
+        shutdownHook = new Thread(this::close, "query-logger-shutdown");
+        try {
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        } catch (IllegalStateException ignored) {
+        }
+    }
+
+    static QueryLogger createQueryLogger(QueryLoggerProperties props) {
+        QueryLoggerProperties.Async async = props.getAsync();
+        if (async != null && async.isEnabled()) {
+            AsyncQueryLogger logger = new AsyncQueryLogger(System.out, System.err, async.getBufferSize(),
+                async.getOverflowPolicy());
+            if (logger.getCapacity() != async.getBufferSize()) {
+                logger.logInfo(props.getLoggerName() + " - event=async_buffer_rounded requested="
+                    + async.getBufferSize() + " capacity=" + logger.getCapacity());
+            }
+            return logger;
+        }
+        return new FastQueryLogger();
+    }
+}
@@ -0,0 +1,157 @@
+package com.berkayd06.query_logger.core;
+
+import com.berkayd06.query_logger.config.QueryLoggerProperties;
+import com.berkayd06.query_logger.logging.QueryLogger;
+import com.berkayd06.query_logger.util.SqlFilter;
+import com.berkayd06.query_logger.vendor.VendorDialectHelper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public final class QueryLoggerSettings {
+
+    final String loggerName;
+    final boolean shouldLog;
+    final boolean onlySlow;
+    final boolean logParams;
+    final boolean logErrors;
+    final QueryLoggerProperties.LogFormat logFormat;
+    final double sampleRate;
+    final long logThresholdMs;
+    final long logThresholdNanos;
+    final boolean shouldCancel;
+    final long cancelThresholdMs;
+    final long cancelThresholdNanos;
+    final boolean captureParams;
+    final int batchSampleRows;
+    final boolean trackResultSets;
+    final boolean tailSampling;
+    final long keepRowsAbove;
+    final int repeatThreshold;
+    final boolean transactionRepeats;
+    final boolean trackTransactions;
+    final long transactionThresholdNanos;
+    final long acquireThresholdNanos;
+    final long leakThresholdNanos;
+    final boolean captureLeaseStack;
+    final long slowQueryThresholdNanos;
+    final SqlFilter sqlFilter;
+    final QueryLoggerProperties.WrapMode wrapMode;
+    final long mysqlMaxExecutionTimeMs;
+    private final long[] vendorTimeoutsMs;
+
+    QueryLoggerSettings(QueryLoggerProperties props, boolean adaptiveSampling, QueryLogger logger) {
+        this.loggerName = props.getLoggerName();
+        this.shouldLog = props.isEnabled() && props.isLogQueries();
+        this.onlySlow = props.isOnlySlow();
+        this.logParams = props.isLogParams();
+        this.logErrors = props.isLogErrors();
+        this.logFormat = props.getLogFormat();
+        this.sampleRate = props.getSampleRate();
+        this.logThresholdMs = Math.max(0L, props.getLogThresholdMs());
+        this.logThresholdNanos = TimeUnit.MILLISECONDS.toNanos(logThresholdMs);
+        this.shouldCancel = props.isCancelEnabled();
+        this.cancelThresholdMs = props.getCancelThresholdMs() > 0
+            ? props.getCancelThresholdMs()
+            : logThresholdMs;
+        this.cancelThresholdNanos = TimeUnit.MILLISECONDS.toNanos(cancelThresholdMs);
+        this.captureParams = (shouldLog || props.getSlowQueries().isEnabled())
+            && (logParams || logFormat == QueryLoggerProperties.LogFormat.BOUND)
+            || (props.getJournal().isEnabled() && props.getJournal().isCaptureParams());
+        this.batchSampleRows = Math.max(0, props.getBatchSampleRows());
+        this.trackResultSets = props.isTrackResultSets();
+        QueryLoggerProperties.Sampling sampling = props.getSampling();
+        this.tailSampling = adaptiveSampling || sampling.getMode() == QueryLoggerProperties.SamplingMode.TAIL;
+        this.keepRowsAbove = sampling.getKeepRowsAbove();
+        QueryLoggerProperties.RepeatedQueries repeats = props.getRepeatedQueries();
+        this.repeatThreshold = repeats.isEnabled() ? Math.max(2, repeats.getThreshold()) : 0;
+        this.transactionRepeats = repeats.isTransactionScope();
+        this.trackTransactions = props.getTransactions().isEnabled();
+        this.transactionThresholdNanos = TimeUnit.MILLISECONDS.toNanos(
+            Math.max(0L, props.getTransactions().getThresholdMs()));
+        QueryLoggerProperties.Connections connections = props.getConnections();
+        this.acquireThresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, connections.getAcquireThresholdMs()));
+        this.leakThresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, connections.getLeakThresholdMs()));
+        this.captureLeaseStack = connections.isCaptureStack();
+        long slowThresholdMs = props.getSlowQueries().getThresholdMs();
+        this.slowQueryThresholdNanos = slowThresholdMs > 0
+            ? TimeUnit.MILLISECONDS.toNanos(slowThresholdMs)
+            : logThresholdNanos;
+        this.sqlFilter = createFilter(props, logger);
+        this.wrapMode = props.getWrapMode();
+        this.mysqlMaxExecutionTimeMs = props.getVendor().getMysql().getMaxExecutionTimeMs();
+        VendorDialectHelper.DatabaseVendor[] vendors = VendorDialectHelper.DatabaseVendor.values();
+        this.vendorTimeoutsMs = new long[vendors.length];
+        for (VendorDialectHelper.DatabaseVendor vendor : vendors) {
+            vendorTimeoutsMs[vendor.ordinal()] = VendorDialectHelper.getStatementTimeoutMs(vendor, props);
+        }
+    }
+
+    long vendorTimeoutMs(VendorDialectHelper.DatabaseVendor vendor) {
+        return vendor != null ? vendorTimeoutsMs[vendor.ordinal()] : 0L;
+    }
+
+    private static SqlFilter createFilter(QueryLoggerProperties props, QueryLogger logger) {
+        SqlFilter.Builder builder = SqlFilter.builder().logger(logger).excludeRegex(props.getExcludeSqlRegex());
+        for (String rule : props.getFilter().getExclude()) {
+            builder.exclude(rule);
+        }
+        for (String rule : props.getFilter().getInclude()) {
+            builder.include(rule);
+        }
+        return builder.build();
+    }
+
+    public String getLoggerName() { return loggerName; }
+    public boolean isLogQueries() { return shouldLog; }
+    public boolean isOnlySlow() { return onlySlow; }
+    public boolean isLogParams() { return logParams; }
+    public boolean isLogErrors() { return logErrors; }
+    public QueryLoggerProperties.LogFormat getLogFormat() { return logFormat; }
+    public double getSampleRate() { return sampleRate; }
+    public long getLogThresholdMs() { return logThresholdMs; }
+    public boolean isCancelEnabled() { return shouldCancel; }
+    public long getCancelThresholdMs() { return cancelThresholdMs; }
+    public boolean isTrackResultSets() { return trackResultSets; }
+    public boolean isTailSampling() { return tailSampling; }
+    public long getKeepRowsAbove() { return keepRowsAbove; }
+    public int getRepeatThreshold() { return repeatThreshold; }
+    public long getTransactionThresholdMs() { return TimeUnit.NANOSECONDS.toMillis(transactionThresholdNanos); }
+    public long getAcquireThresholdMs() { return TimeUnit.NANOSECONDS.toMillis(acquireThresholdNanos); }
+    public long getLeakThresholdMs() { return TimeUnit.NANOSECONDS.toMillis(leakThresholdNanos); }
+    public long getSlowQueryThresholdMs() { return TimeUnit.NANOSECONDS.toMillis(slowQueryThresholdNanos); }
+    public QueryLoggerProperties.WrapMode getWrapMode() { return wrapMode; }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("loggerName", loggerName);
+        map.put("logQueries", shouldLog);
+        map.put("logThresholdMs", logThresholdMs);
+        map.put("onlySlow", onlySlow);
+        map.put("logParams", logParams);
+        map.put("logErrors", logErrors);
+        map.put("logFormat", logFormat);
+        map.put("sampleRate", sampleRate);
+        map.put("tailSampling", tailSampling);
+        map.put("cancelEnabled", shouldCancel);
+        map.put("cancelThresholdMs", cancelThresholdMs);
+        map.put("trackResultSets", trackResultSets);
+        map.put("repeatThreshold", repeatThreshold);
+        map.put("transactionThresholdMs", getTransactionThresholdMs());
+        map.put("acquireThresholdMs", getAcquireThresholdMs());
+        map.put("leakThresholdMs", getLeakThresholdMs());
+        map.put("slowQueryThresholdMs", getSlowQueryThresholdMs());
+        map.put("wrapMode", wrapMode);
+        return map;
+    }
+
+    void appendTo(StringBuilder sb) {
+        sb.append(" log_queries=").append(shouldLog)
+          .append(" log_threshold_ms=").append(logThresholdMs)
+          .append(" only_slow=").append(onlySlow)
+          .append(" sample_rate=").append(sampleRate)
+          .append(" cancel_enabled=").append(shouldCancel)
+          .append(" cancel_threshold_ms=").append(cancelThresholdMs);
+    }
+}
@@ -1,9 +1,19 @@
 package com.berkayd06.query_logger.core;
 
 import com.berkayd06.query_logger.config.QueryLoggerProperties;
-import com.berkayd06.query_logger.logging.FastQueryLogger;
+import com.berkayd06.query_logger.journal.QueryJournal;
+import com.berkayd06.query_logger.logging.ParameterBuffer;
+import com.berkayd06.query_logger.logging.QueryEvent;
 import com.berkayd06.query_logger.logging.QueryLogger;
+import com.berkayd06.query_logger.sampling.AdaptiveSampler;
+import com.berkayd06.query_logger.stats.ConnectionStats;
+import com.berkayd06.query_logger.stats.QueryStatistics;
+import com.berkayd06.query_logger.stats.SlowQueryStore;
+import com.berkayd06.query_logger.util.FormattedSqlCache;
 import com.berkayd06.query_logger.util.QueryOrigin;
+import com.berkayd06.query_logger.util.QueryScope;
+import com.berkayd06.query_logger.util.SqlFilter;
+import com.berkayd06.query_logger.util.SqlFingerprint;
 import com.berkayd06.query_logger.util.SqlFormatter;
 import com.berkayd06.query_logger.vendor.VendorDialectHelper;
 
@@ -14,101 +24,252 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
-import java.sql.SQLTimeoutException;
 import java.sql.Statement;
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.List;
-import java.util.Locale;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Pattern;
 
 public class QueryLoggingDataSource implements DataSource {
     
+    private static final int MAX_LEAK_FRAMES = 20;
     private static final String[] EXECUTE_METHOD_PREFIXES = {
-        "execute", "addBatch", "getResultSet", "executeQuery", 
+        "execute", "executeQuery", 
         "executeUpdate", "executeLargeUpdate"
     };
     
     private final DataSource target;
     private final QueryLoggerProperties props;
-    private final ScheduledExecutorService scheduler;
+    private final String beanName;
+    private final CancellationTimer cancellationTimer = CancellationTimer.shared();
+    private final QueryLoggerRuntime runtime;
     private final QueryLogger queryLogger;
-    private final Pattern excludePattern;
-    private final boolean shouldLog;
-    private final boolean shouldCancel;
-    private final long logThresholdMs;
-    private final long cancelThresholdMs;
+    private final FormattedSqlCache formatCache;
+    private final QueryStatistics statistics;
+    private final ConnectionStats connectionStats;
+    private final SlowQueryStore slowQueries;
+    private final QueryJournal journal;
+    private final AdaptiveSampler sampler;
+    private volatile QueryLoggerSettings settings;
+    private volatile QueryLoggerSettings baseline;
+    private ScheduledFuture<?> revertTask;
+    private long revertAtMillis;
     private final AtomicReference<VendorDialectHelper.DatabaseVendor> cachedVendor = new AtomicReference<>();
+    private final Map<Connection, Long> sessionTimeouts = Collections.synchronizedMap(new WeakHashMap<>());
+    private volatile QueryExecutionListener executionListener;
 
     public QueryLoggingDataSource(DataSource target, QueryLoggerProperties props) {
+        this(target, props, new QueryLoggerRuntime(Objects.requireNonNull(props, "QueryLoggerProperties cannot be null")));
+    }
+
+    public QueryLoggingDataSource(DataSource target, QueryLoggerProperties props, QueryLoggerRuntime runtime) {
+        this(target, props, runtime, null);
+    }
+
+    public QueryLoggingDataSource(DataSource target, QueryLoggerProperties props, QueryLoggerRuntime runtime,
+                                  String beanName) {
         this.target = Objects.requireNonNull(target, "Target DataSource cannot be null");
         this.props = Objects.requireNonNull(props, "QueryLoggerProperties cannot be null");
-        this.queryLogger = new FastQueryLogger();
-        this.excludePattern = compilePattern(props.getExcludeSqlRegex());
-        this.shouldLog = props.isEnabled();
-        this.shouldCancel = props.isCancelEnabled();
-        this.logThresholdMs = props.getLogThresholdMs();
-        this.cancelThresholdMs = props.getCancelThresholdMs() > 0 
-            ? props.getCancelThresholdMs() 
-            : props.getLogThresholdMs();
-        
-        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
-            @Override
-            public Thread newThread(Runnable r) {
-                Thread t = new Thread(r, "query-logger-cancel-scheduler");
-                t.setDaemon(true);
-                t.setPriority(Thread.NORM_PRIORITY);
-                return t;
-            }
-        });
-        
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            if (!scheduler.isShutdown()) {
-                scheduler.shutdown();
-                try {
-                    if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                        scheduler.shutdownNow();
-                    }
-                } catch (InterruptedException e) {
-                    scheduler.shutdownNow();
-                    Thread.currentThread().interrupt();
-                }
-            }
-        }, "query-logger-shutdown"));
+        this.beanName = beanName;
+        this.runtime = Objects.requireNonNull(runtime, "QueryLoggerRuntime cannot be null");
+        this.queryLogger = runtime.getQueryLogger();
+        this.formatCache = createFormatCache(props);
+        this.statistics = createStatistics(props, runtime);
+        this.connectionStats = props.getConnections().isEnabled() ? new ConnectionStats() : null;
+        QueryLoggerProperties.SlowQueries slow = props.getSlowQueries();
+        this.slowQueries = slow.isEnabled()
+            ? new SlowQueryStore(slow.getCapacity(), slow.getTopN(), slow.getWindowMs())
+            : null;
+        this.journal = props.getJournal().isEnabled() ? runtime.getJournal(props.getJournal()) : null;
+        QueryLoggerProperties.Sampling sampling = props.getSampling();
+        this.sampler = sampling.isAdaptive()
+            ? new AdaptiveSampler(sampling.getMaxPerSecond(), sampling.getMaxPerFingerprintPerSecond(),
+                sampling.getMaxFingerprints())
+            : null;
+        this.baseline = new QueryLoggerSettings(props, sampler != null, queryLogger);
+        this.settings = baseline;
+    }
+
+    public QueryLoggerSettings getSettings() {
+        return settings;
+    }
+
+    public QueryLoggerSettings getBaselineSettings() {
+        return baseline;
+    }
+
+    public synchronized long getRevertAtMillis() {
+        return revertTask != null ? revertAtMillis : 0L;
+    }
+
+    public QueryLoggerSettings reconfigure(QueryLoggerProperties overrides) {
+        return reconfigure(overrides, 0L);
+    }
+
+    public synchronized QueryLoggerSettings reconfigure(QueryLoggerProperties overrides, long revertAfterMs) {
+        QueryLoggerSettings next = new QueryLoggerSettings(overrides, sampler != null, queryLogger);
+        cancelRevert();
+        if (revertAfterMs > 0) {
+            revertAtMillis = System.currentTimeMillis() + revertAfterMs;
+            revertTask = runtime.getScheduler().schedule(() -> revertIfCurrent(next), revertAfterMs,
+                TimeUnit.MILLISECONDS);
+        }
+        settings = next;
+        queryLogger.logInfo(formatSettings(next.loggerName, "settings_changed", next, revertAfterMs));
+        return next;
     }
 
-    private static Pattern compilePattern(String regex) {
-        if (regex == null || regex.trim().isEmpty()) {
+    public synchronized void refresh(QueryLoggerProperties props) {
+        QueryLoggerSettings next = new QueryLoggerSettings(props, sampler != null, queryLogger);
+        boolean overridden = settings != baseline;
+        baseline = next;
+        if (!overridden) {
+            settings = next;
+        }
+    }
+
+    public synchronized QueryLoggerSettings revert() {
+        cancelRevert();
+        if (settings != baseline) {
+            settings = baseline;
+            queryLogger.logInfo(formatSettings(baseline.loggerName, "settings_reverted", baseline, 0L));
+        }
+        return baseline;
+    }
+
+    private synchronized void revertIfCurrent(QueryLoggerSettings expected) {
+        if (settings == expected) {
+            revertTask = null;
+            revert();
+        }
+    }
+
+    private void cancelRevert() {
+        if (revertTask != null) {
+            revertTask.cancel(false);
+            revertTask = null;
+        }
+    }
+
+    private static QueryStatistics createStatistics(QueryLoggerProperties props, QueryLoggerRuntime runtime) {
+        QueryLoggerProperties.Stats stats = props.getStats();
+        if (stats == null || !stats.isEnabled()) {
             return null;
         }
+        QueryStatistics statistics = new QueryStatistics(stats.getMaxFingerprints(), stats.isHistograms());
+        runtime.register(statistics, props.getLoggerName(), stats.getReportIntervalMs(), stats.isResetOnReport());
+        return statistics;
+    }
+
+    public QueryStatistics getStatistics() {
+        return statistics;
+    }
+
+    public QueryExecutionListener getExecutionListener() {
+        return executionListener;
+    }
+
+    public void setExecutionListener(QueryExecutionListener executionListener) {
+        this.executionListener = executionListener;
+    }
+
+    public VendorDialectHelper.DatabaseVendor getVendor() {
+        return cachedVendor.get();
+    }
+
+    public QueryLoggerRuntime getRuntime() {
+        return runtime;
+    }
+
+    public QueryLoggerProperties getProperties() {
+        return props;
+    }
+
+    public String getBeanName() {
+        return beanName;
+    }
+
+    public static Map<String, QueryLoggingDataSource> findAll(Map<String, DataSource> dataSources) {
+        Map<String, QueryLoggingDataSource> found = new LinkedHashMap<>();
+        Set<QueryLoggingDataSource> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Map.Entry<String, DataSource> entry : dataSources.entrySet()) {
+            QueryLoggingDataSource dataSource = find(entry.getValue());
+            if (dataSource != null && seen.add(dataSource)) {
+                found.put(dataSource.beanName != null ? dataSource.beanName : entry.getKey(), dataSource);
+            }
+        }
+        return found;
+    }
+
+    private static QueryLoggingDataSource find(DataSource dataSource) {
+        if (dataSource instanceof QueryLoggingDataSource) {
+            return (QueryLoggingDataSource) dataSource;
+        }
         try {
-            return Pattern.compile(regex.trim(), Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-        } catch (Exception e) {
-            System.err.println("WARN  Invalid regex pattern for excludeSqlRegex: " + regex);
+            if (dataSource != null && dataSource.isWrapperFor(QueryLoggingDataSource.class)) {
+                return dataSource.unwrap(QueryLoggingDataSource.class);
+            }
+        } catch (SQLException | RuntimeException ignored) {
+        }
+        return null;
+    }
+
+    private static FormattedSqlCache createFormatCache(QueryLoggerProperties props) {
+        QueryLoggerProperties.FormatCache cache = props.getFormatCache();
+        if (cache == null || !cache.isEnabled()) {
             return null;
         }
+        return new FormattedSqlCache(cache.getMaxEntries(), cache.getMaxWeight());
+    }
+
+    public AdaptiveSampler getSampler() {
+        return sampler;
+    }
+
+    public FormattedSqlCache getFormatCache() {
+        return formatCache;
+    }
+
+    public QueryLogger getQueryLogger() {
+        return queryLogger;
     }
 
     @Override
     public Connection getConnection() throws SQLException {
-        return wrap(target.getConnection());
+        long startNanos = System.nanoTime();
+        try {
+            return wrap(target.getConnection(), startNanos);
+        } catch (SQLException | RuntimeException e) {
+            onAcquireFailure();
+            throw e;
+        }
     }
 
     @Override
     public Connection getConnection(String username, String password) throws SQLException {
-        return wrap(target.getConnection(username, password));
+        long startNanos = System.nanoTime();
+        try {
+            return wrap(target.getConnection(username, password), startNanos);
+        } catch (SQLException | RuntimeException e) {
+            onAcquireFailure();
+            throw e;
+        }
+    }
+
+    private void onAcquireFailure() {
+        if (connectionStats != null) {
+            connectionStats.recordAcquireFailure();
+        }
     }
 
     @Override
@@ -172,27 +333,81 @@ public class QueryLoggingDataSource implements DataSource {
         return target;
     }
 
-    private Connection wrap(final Connection connection) {
+    private Connection wrap(final Connection connection, long startNanos) {
+        QueryLoggerSettings current = settings;
+        ConnectionLease lease = connectionStats != null ? openLease(current, startNanos) : null;
         if (cachedVendor.get() == null && connection != null) {
             VendorDialectHelper.DatabaseVendor vendor = VendorDialectHelper.detectVendor(connection);
             cachedVendor.compareAndSet(null, vendor);
         }
-        return (Connection) Proxy.newProxyInstance(
-            connection.getClass().getClassLoader(),
-            new Class[]{Connection.class},
-            new ConnectionInvocationHandler(connection)
-        );
+        ConnectionContext context = new ConnectionContext(connection, sessionTimeouts, lease,
+            current.trackTransactions ? new TransactionTracker() : null);
+        if (current.wrapMode == QueryLoggerProperties.WrapMode.PROXY) {
+            return (Connection) Proxy.newProxyInstance(
+                connection.getClass().getClassLoader(),
+                new Class[]{Connection.class},
+                new ConnectionInvocationHandler(connection, context)
+            );
+        }
+        return new LoggingConnection(this, connection, context);
+    }
+
+    private ConnectionLease openLease(QueryLoggerSettings current, long startNanos) {
+        long acquiredNanos = System.nanoTime();
+        long waitNanos = acquiredNanos - startNanos;
+        int active = connectionStats.recordAcquire(waitNanos);
+        if (current.acquireThresholdNanos > 0 && waitNanos >= current.acquireThresholdNanos) {
+            queryLogger.logWarning(formatAcquire(current.loggerName, waitNanos, active));
+        }
+        ConnectionLease lease = new ConnectionLease(current.loggerName, acquiredNanos,
+            current.captureLeaseStack ? new Throwable("Connection acquired here") : null);
+        if (current.leakThresholdNanos > 0) {
+            lease.armed = true;
+            cancellationTimer.arm(lease, current.leakThresholdNanos);
+        }
+        return lease;
+    }
+
+    public ConnectionStats getConnectionStats() {
+        return connectionStats;
+    }
+
+    public SlowQueryStore getSlowQueries() {
+        return slowQueries;
+    }
+
+    String applyVendorHints(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        String modifiedSql = VendorDialectHelper.maybeAddVendorHints(sql, cachedVendor.get(),
+            settings.mysqlMaxExecutionTimeMs);
+        return modifiedSql != null ? modifiedSql : sql;
+    }
+
+    StatementTracker newTracker(ConnectionContext context, Statement statement, String preparedSql) {
+        return new StatementTracker(context, statement, preparedSql);
     }
 
     private class ConnectionInvocationHandler implements InvocationHandler {
         private final Connection connection;
+        private final ConnectionContext context;
 
-        ConnectionInvocationHandler(Connection connection) {
+        ConnectionInvocationHandler(Connection connection, ConnectionContext context) {
             this.connection = connection;
+            this.context = context;
         }
 
         @Override
         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            try {
+                return intercept(method, args);
+            } catch (InvocationTargetException ite) {
+                throw ite.getTargetException();
+            }
+        }
+
+        private Object intercept(Method method, Object[] args) throws Throwable {
             String methodName = method.getName();
             if (!needsInterception(methodName)) {
                 return method.invoke(connection, args);
@@ -200,291 +415,876 @@ public class QueryLoggingDataSource implements DataSource {
             
             if ("createStatement".equals(methodName)) {
                 Statement stmt = (Statement) method.invoke(connection, args);
-                return wrapStatement(connection, stmt);
+                return wrapStatement(context, stmt, null);
             }
             
             if ("prepareStatement".equals(methodName) || "prepareCall".equals(methodName)) {
+                String sql = null;
                 if (args != null && args.length > 0 && args[0] instanceof String) {
-                    String sql = (String) args[0];
-                    VendorDialectHelper.DatabaseVendor vendor = cachedVendor.get();
-                    String modifiedSql = VendorDialectHelper.maybeAddVendorHints(
-                        sql, vendor, props);
-                    if (modifiedSql != null && !modifiedSql.equals(sql)) {
-                        args[0] = modifiedSql;
-                    }
+                    sql = applyVendorHints((String) args[0]);
+                    args[0] = sql;
                 }
                 Statement stmt = (Statement) method.invoke(connection, args);
-                return wrapStatement(connection, stmt);
+                return wrapStatement(context, stmt, sql);
             }
             
-            return method.invoke(connection, args);
+            if ("close".equals(methodName)) {
+                try {
+                    return method.invoke(connection, args);
+                } finally {
+                    context.onClose();
+                }
+            }
+
+            if ("setAutoCommit".equals(methodName)) {
+                Object result = method.invoke(connection, args);
+                context.onAutoCommitChanged((Boolean) args[0]);
+                return result;
+            }
+
+            try {
+                return method.invoke(connection, args);
+            } finally {
+                if ("commit".equals(methodName)) {
+                    context.onCommit();
+                } else if (args == null || args.length == 0) {
+                    context.onRollback();
+                } else {
+                    context.onSavepointRollback();
+                }
+            }
         }
         
         private boolean needsInterception(String methodName) {
             return "createStatement".equals(methodName) 
                 || "prepareStatement".equals(methodName) 
-                || "prepareCall".equals(methodName);
+                || "prepareCall".equals(methodName)
+                || "close".equals(methodName)
+                || "setAutoCommit".equals(methodName)
+                || "commit".equals(methodName)
+                || "rollback".equals(methodName);
         }
     }
 
-    private Statement wrapStatement(final Connection connection, final Statement statement) {
-        final Map<Integer, Object> params = new ConcurrentHashMap<>(4);
-        
+    private Statement wrapStatement(final ConnectionContext context, final Statement statement, String preparedSql) {
         return (Statement) Proxy.newProxyInstance(
             statement.getClass().getClassLoader(),
             statement.getClass().getInterfaces(),
-            new StatementInvocationHandler(connection, statement, params)
+            new StatementInvocationHandler(statement, newTracker(context, statement, preparedSql))
         );
     }
 
-    private class StatementInvocationHandler implements InvocationHandler {
-        private final Connection connection;
+    private static class StatementInvocationHandler implements InvocationHandler {
         private final Statement statement;
-        private final Map<Integer, Object> params;
+        private final StatementTracker tracker;
 
-        StatementInvocationHandler(Connection connection, Statement statement, 
-                                   Map<Integer, Object> params) {
-            this.connection = connection;
+        StatementInvocationHandler(Statement statement, StatementTracker tracker) {
             this.statement = statement;
-            this.params = params;
+            this.tracker = tracker;
         }
 
         @Override
         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            try {
+                return intercept(proxy, method, args);
+            } catch (InvocationTargetException ite) {
+                throw ite.getTargetException();
+            }
+        }
+
+        private Object intercept(Object proxy, Method method, Object[] args) throws Throwable {
             String methodName = method.getName();
 
             if (methodName.startsWith("set") && args != null && args.length >= 2
                 && args[0] instanceof Integer) {
-                params.put((Integer) args[0], args.length > 1 ? args[1] : null);
+                tracker.setParam((Integer) args[0], "setNull".equals(methodName) ? null : args[1]);
                 return method.invoke(statement, args);
             }
 
-            if (!isExecuteLike(methodName)) {
+            if ("clearParameters".equals(methodName)) {
+                tracker.clearParams();
                 return method.invoke(statement, args);
             }
 
-            return handleExecuteOperation(method, args);
-        }
-
-        private Object handleExecuteOperation(Method method, Object[] args) throws Throwable {
-            String rawSql = extractSqlArgOrToString(statement, args);
-            if (rawSql == null) rawSql = "";
-            boolean shouldLogThisQuery = shouldLog;
-            if (shouldLogThisQuery) {
-                if (excludePattern != null && excludePattern.matcher(rawSql).find()) {
-                    shouldLogThisQuery = false;
-                } else if (!sampleHit(props.getSampleRate())) {
-                    shouldLogThisQuery = false;
-                }
+            if ("addBatch".equals(methodName)) {
+                Object result = method.invoke(statement, args);
+                tracker.addBatch(args != null && args.length > 0 ? (String) args[0] : null);
+                return result;
             }
 
-            VendorDialectHelper.DatabaseVendor vendor = cachedVendor.get();
-            if (vendor != null && vendor != VendorDialectHelper.DatabaseVendor.UNKNOWN) {
-                VendorDialectHelper.maybeApplyVendorStatementTimeout(connection, vendor, props);
+            if ("clearBatch".equals(methodName)) {
+                tracker.clearBatch();
+                return method.invoke(statement, args);
             }
 
-            if (shouldCancel && cancelThresholdMs >= 1000) {
+            if ("close".equals(methodName)) {
                 try {
-                    statement.setQueryTimeout((int) Math.max(1, (cancelThresholdMs + 999) / 1000));
-                } catch (SQLException ignored) {}
+                    return method.invoke(statement, args);
+                } finally {
+                    tracker.close();
+                }
             }
 
-            long startNanos = System.nanoTime();
-            ScheduledFuture<?> canceller = null;
-            boolean canceled = false;
+            if ("getResultSet".equals(methodName)) {
+                return tracker.currentResultSet((Statement) proxy, (ResultSet) method.invoke(statement, args));
+            }
 
-            if (shouldCancel && cancelThresholdMs > 0 && cancelThresholdMs < 1000 
-                && !scheduler.isShutdown() && !scheduler.isTerminated()) {
-                long cancelMs = cancelThresholdMs;
-                try {
-                    canceller = scheduler.schedule(() -> {
-                        try {
-                            statement.cancel();
-                        } catch (SQLException e) {
-                            queryLogger.logWarning("Failed to cancel long-running query: " + e.getMessage());
-                        }
-                    }, cancelMs, TimeUnit.MILLISECONDS);
-                } catch (java.util.concurrent.RejectedExecutionException e) {
-                }
+            if ("getMoreResults".equals(methodName)) {
+                tracker.moreResults(args != null && args.length > 0 ? (Integer) args[0] : Statement.CLOSE_CURRENT_RESULT);
+                return method.invoke(statement, args);
             }
 
+            if (!isExecuteLike(methodName)) {
+                return method.invoke(statement, args);
+            }
+
+            if ("executeBatch".equals(methodName) || "executeLargeBatch".equals(methodName)) {
+                tracker.beginBatch();
+            } else {
+                tracker.begin(args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null);
+            }
             try {
-                Object result = method.invoke(statement, args);
+                Object result = tracker.updated(method.invoke(statement, args));
+                if (result instanceof ResultSet && "executeQuery".equals(methodName)) {
+                    return tracker.resultSet((Statement) proxy, (ResultSet) result);
+                }
+                if (result instanceof Boolean && "execute".equals(methodName)) {
+                    tracker.executed((Boolean) result);
+                }
                 return result;
             } catch (InvocationTargetException ite) {
                 Throwable cause = ite.getTargetException();
-                canceled = isTimeoutOrCancel(cause);
-                throw unwrapException(ite);
+                tracker.fail(cause);
+                throw cause;
             } finally {
-                long durationNanos = System.nanoTime() - startNanos;
-                double durationMs = durationNanos / 1_000_000.0;
-                if (canceller != null && !scheduler.isShutdown() && !scheduler.isTerminated()) {
-                    try {
-                        canceller.cancel(false);
-                    } catch (java.util.concurrent.RejectedExecutionException e) {
-                    } catch (Exception e) {
-                    }
+                tracker.end();
+            }
+        }
+    }
+
+    final class ConnectionLease extends CancellationTimer.Timeout {
+        private final String loggerName;
+        private final long acquiredNanos;
+        private final String threadName;
+        private final Throwable acquiredAt;
+        private volatile boolean leakReported;
+        private boolean armed;
+        private boolean released;
+
+        ConnectionLease(String loggerName, long acquiredNanos, Throwable acquiredAt) {
+            this.loggerName = loggerName;
+            this.acquiredNanos = acquiredNanos;
+            this.threadName = Thread.currentThread().getName();
+            this.acquiredAt = acquiredAt;
+        }
+
+        @Override
+        protected void expire() {
+            leakReported = true;
+            connectionStats.recordLeakSuspect();
+            queryLogger.logWarning(formatLeak(loggerName, System.nanoTime() - acquiredNanos, threadName,
+                connectionStats.getActive(), acquiredAt));
+        }
+
+        synchronized void release() {
+            if (released) return;
+            released = true;
+            if (armed) {
+                cancellationTimer.disarm(this);
+            }
+            long heldNanos = System.nanoTime() - acquiredNanos;
+            connectionStats.recordRelease(heldNanos);
+            if (leakReported) {
+                queryLogger.logInfo(formatLeakReturned(loggerName, heldNanos, threadName));
+            }
+        }
+    }
+
+    final class TransactionTracker {
+        private boolean started;
+        private long startNanos;
+        private int statements;
+        private int failures;
+        private int lockProne;
+        private long dbNanos;
+        private long longestNanos;
+        private String longestFingerprint;
+        private String origin;
+
+        void begin() {
+            if (statements == 0) {
+                started = true;
+                startNanos = System.nanoTime();
+            }
+        }
+
+        void record(long durationNanos, String fingerprint, boolean lockProneStatement, String statementOrigin,
+                    boolean failed) {
+            if (!started) {
+                started = true;
+                startNanos = System.nanoTime() - durationNanos;
+            }
+            statements++;
+            dbNanos += durationNanos;
+            if (durationNanos > longestNanos) {
+                longestNanos = durationNanos;
+                longestFingerprint = fingerprint;
+            }
+            if (lockProneStatement) {
+                lockProne++;
+            }
+            if (failed) {
+                failures++;
+            }
+            if (origin == null || "NATIVE".equals(origin)) {
+                origin = statementOrigin;
+            }
+        }
+
+        void finish(String outcome) {
+            if (statements > 0) {
+                long wallNanos = System.nanoTime() - startNanos;
+                QueryLoggerSettings current = settings;
+                if (wallNanos >= current.transactionThresholdNanos) {
+                    queryLogger.logWarning(formatTransaction(current.loggerName, outcome, origin, wallNanos,
+                        dbNanos, statements, failures, lockProne, longestNanos, longestFingerprint));
+                }
+            }
+            started = false;
+            statements = 0;
+            failures = 0;
+            lockProne = 0;
+            dbNanos = 0L;
+            longestNanos = 0L;
+            longestFingerprint = null;
+            origin = null;
+        }
+    }
+
+    static boolean isLockProne(String fingerprint) {
+        return fingerprint.startsWith("update") || fingerprint.startsWith("delete")
+            || fingerprint.startsWith("merge") || fingerprint.startsWith("lock ")
+            || fingerprint.contains(" for update") || fingerprint.contains(" for share")
+            || fingerprint.contains(" for no key update") || fingerprint.contains(" lock in share mode")
+            || fingerprint.contains("with (updlock") || fingerprint.contains("with (xlock");
+    }
+
+    private final class StatementCancel extends CancellationTimer.Timeout {
+        private final Statement statement;
+        private volatile boolean fired;
+
+        StatementCancel(Statement statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        protected void expire() {
+            fired = true;
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                queryLogger.logWarning("Failed to cancel long-running query: " + e.getMessage());
+            }
+        }
+    }
+
+    final class StatementTracker {
+        private final ConnectionContext context;
+        private final Statement statement;
+        private final String preparedSql;
+        private final QueryEvent event = new QueryEvent();
+        private final ParameterBuffer params;
+        private String cachedSql;
+        private FormattedSqlCache.Entry cachedSqlEntry;
+        private String fingerprintSql;
+        private String filterSql;
+        private SqlFilter filterRef;
+        private boolean filterVerdict;
+        private String fingerprint;
+
+        private String rawSql;
+        private boolean shouldLogThisQuery;
+        private boolean excluded;
+        private boolean sampledOut;
+        private boolean failed;
+        private boolean canceled;
+        private long rows;
+        private boolean batchExecution;
+        private int batchSize;
+        private String batchSql;
+        private StringBuilder batchSample;
+        private long startNanos;
+        private long durationNanos;
+        private double sampleRate;
+        private String origin;
+        private boolean executing;
+        private LoggingResultSet openResultSet;
+        private boolean resultSetPending;
+        private StatementCancel cancelTimeout;
+        private Throwable failure;
+        private String lockProneFingerprint;
+        private boolean lockProne;
+        private boolean cancelArmed;
+        private QueryLoggerSettings settings;
+
+        StatementTracker(ConnectionContext context, Statement statement, String preparedSql) {
+            this.context = context;
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+            this.settings = QueryLoggingDataSource.this.settings;
+            this.params = event.getParams();
+        }
+
+        void setParam(int index, Object value) {
+            if (capturing()) params().setObject(index, value);
+        }
+
+        void setParam(int index, int value) {
+            if (capturing()) params().setInt(index, value);
+        }
+
+        void setParam(int index, long value) {
+            if (capturing()) params().setLong(index, value);
+        }
+
+        void setParam(int index, float value) {
+            if (capturing()) params().setFloat(index, value);
+        }
+
+        void setParam(int index, double value) {
+            if (capturing()) params().setDouble(index, value);
+        }
+
+        void setParam(int index, boolean value) {
+            if (capturing()) params().setBoolean(index, value);
+        }
+
+        void clearParams() {
+            params().clear();
+        }
+
+        private boolean capturing() {
+            return QueryLoggingDataSource.this.settings.captureParams;
+        }
+
+        private ParameterBuffer params() {
+            if (openResultSet != null || resultSetPending) {
+                flushPending();
+            }
+            return params;
+        }
+
+        ResultSet resultSet(Statement owner, ResultSet resultSet) {
+            if (!settings.trackResultSets || !executing || resultSet == null) {
+                return resultSet;
+            }
+            LoggingResultSet wrapped = new LoggingResultSet(owner, resultSet, this);
+            openResultSet = wrapped;
+            return wrapped;
+        }
+
+        boolean executed(boolean hasResultSet) {
+            resultSetPending = hasResultSet && settings.trackResultSets && executing;
+            return hasResultSet;
+        }
+
+        ResultSet currentResultSet(Statement owner, ResultSet resultSet) {
+            if (resultSet == null) {
+                return null;
+            }
+            if (resultSetPending) {
+                resultSetPending = false;
+                LoggingResultSet wrapped = new LoggingResultSet(owner, resultSet, this);
+                openResultSet = wrapped;
+                return wrapped;
+            }
+            LoggingResultSet open = openResultSet;
+            return open != null && open.getDelegate() == resultSet ? open : resultSet;
+        }
+
+        void moreResults(int current) {
+            if (current != Statement.KEEP_CURRENT_RESULT) {
+                flushPending();
+            }
+        }
+
+        void resultSetClosed(LoggingResultSet resultSet) {
+            if (openResultSet == resultSet) {
+                openResultSet = null;
+                complete(resultSet);
+            }
+        }
+
+        void close() {
+            flushPending();
+        }
+
+        private void flushPending() {
+            LoggingResultSet pending = openResultSet;
+            if (pending != null) {
+                openResultSet = null;
+                complete(pending);
+            } else if (resultSetPending) {
+                resultSetPending = false;
+                complete(null);
+            }
+        }
+
+        void addBatch(String sql) {
+            flushPending();
+            batchSize++;
+            if (sql != null && batchSql == null) {
+                batchSql = sql;
+            }
+            if (capturing() && batchSize <= settings.batchSampleRows) {
+                if (batchSample == null) {
+                    batchSample = new StringBuilder(64);
                 }
-                if (shouldLogThisQuery || canceled) {
-                    logQuery(rawSql, durationMs, canceled);
+                batchSample.append(batchSample.length() == 0 ? '[' : ',');
+                if (sql != null) {
+                    batchSample.append('"').append(SqlFormatter.sanitize(sql)).append('"');
+                } else {
+                    params.appendTo(batchSample);
                 }
-                cleanupOrigin();
             }
         }
 
-        private void logQuery(String rawSql, double durationMs, boolean canceled) {
-            if (!shouldLog) return;
-            if (props.isOnlySlow() && durationMs < logThresholdMs) return;
+        void clearBatch() {
+            batchSize = 0;
+            batchSql = null;
+            if (batchSample != null) {
+                batchSample.setLength(0);
+            }
+        }
 
-            String formattedSql = formatSqlIfNeeded(rawSql);
-            String origin = QueryOrigin.current();
+        void beginBatch() {
+            batchExecution = true;
+            begin(batchSql);
+        }
 
-            if (props.isLogParams() && props.getLogFormat() != QueryLoggerProperties.LogFormat.BOUND) {
-                String paramsStr = formatParams(params);
-                queryLogger.logQuery(props.getLoggerName(), origin, durationMs, canceled, formattedSql, paramsStr);
-            } else {
-                queryLogger.logQueryWithoutParams(props.getLoggerName(), origin, durationMs, canceled, formattedSql);
+        void begin(String sql) {
+            flushPending();
+            QueryLoggerSettings settings = QueryLoggingDataSource.this.settings;
+            this.settings = settings;
+            if (!settings.captureParams) {
+                params.clear();
+            }
+            rawSql = sql != null ? sql : preparedSql;
+            if (rawSql == null) {
+                rawSql = statementToString(statement);
+            }
+            excluded = settings.sqlFilter != null && (settings.shouldLog || statistics != null
+                || slowQueries != null || journal != null || executionListener != null
+                || settings.repeatThreshold > 0)
+                && isExcluded(settings.sqlFilter, rawSql);
+            sampledOut = settings.shouldLog && !excluded && !settings.tailSampling && !sampleHit(settings.sampleRate);
+            shouldLogThisQuery = settings.shouldLog && !excluded && !sampledOut;
+
+            VendorDialectHelper.DatabaseVendor vendor = cachedVendor.get();
+            context.ensureVendorTimeout(vendor, settings.vendorTimeoutMs(vendor));
+
+            long cancelThresholdMs = settings.shouldCancel ? settings.cancelThresholdMs : 0L;
+            if (cancelThresholdMs >= 1000) {
+                try {
+                    statement.setQueryTimeout((int) Math.max(1, (cancelThresholdMs + 999) / 1000));
+                } catch (SQLException ignored) {}
+            }
+
+            failed = false;
+            failure = null;
+            canceled = false;
+            rows = 0L;
+            executing = true;
+            startNanos = System.nanoTime();
+
+            if (cancelThresholdMs > 0 && cancelThresholdMs < 1000) {
+                if (cancelTimeout == null) {
+                    cancelTimeout = new StatementCancel(statement);
+                }
+                cancelTimeout.fired = false;
+                cancellationTimer.arm(cancelTimeout, settings.cancelThresholdNanos);
+                cancelArmed = true;
             }
         }
 
-        private String formatSqlIfNeeded(String rawSql) {
-            if (rawSql == null || rawSql.isEmpty()) {
-                return "";
+        void fail(Throwable cause) {
+            failed = true;
+            failure = cause;
+            canceled = (cancelArmed && cancelTimeout.fired)
+                || VendorDialectHelper.isTimeoutOrCancel(cachedVendor.get(), cause);
+        }
+
+        int updated(int count) {
+            if (count > 0) {
+                rows += count;
             }
-            
-            QueryLoggerProperties.LogFormat format = props.getLogFormat();
-            if (format == QueryLoggerProperties.LogFormat.SQL) {
-                return sanitize(rawSql);
+            return count;
+        }
+
+        long updated(long count) {
+            if (count > 0) {
+                rows += count;
             }
-            
-            if (format == QueryLoggerProperties.LogFormat.BOUND && !params.isEmpty()) {
-                return SqlFormatter.formatQuery(rawSql, params, format);
+            return count;
+        }
+
+        int[] updated(int[] counts) {
+            if (counts != null) {
+                for (int count : counts) {
+                    updated(count);
+                }
             }
-            
-            if (format == QueryLoggerProperties.LogFormat.FORMATTED) {
-                return SqlFormatter.formatQuery(rawSql, null, format);
+            return counts;
+        }
+
+        long[] updated(long[] counts) {
+            if (counts != null) {
+                for (long count : counts) {
+                    updated(count);
+                }
             }
-            
-            return sanitize(rawSql);
+            return counts;
         }
 
-        private Throwable unwrapException(InvocationTargetException ite) throws SQLException {
-            Throwable cause = ite.getTargetException();
-            if (cause instanceof SQLException) {
-                throw (SQLException) cause;
+        Object updated(Object result) {
+            if (result instanceof Integer) {
+                updated(((Integer) result).intValue());
+            } else if (result instanceof Long) {
+                updated(((Long) result).longValue());
+            } else if (result instanceof int[]) {
+                updated((int[]) result);
+            } else if (result instanceof long[]) {
+                updated((long[]) result);
             }
-            if (cause instanceof RuntimeException) {
-                throw (RuntimeException) cause;
+            return result;
+        }
+
+        void end() {
+            durationNanos = System.nanoTime() - startNanos;
+            executing = false;
+            if (cancelArmed) {
+                cancellationTimer.disarm(cancelTimeout);
+                cancelArmed = false;
             }
-            if (cause instanceof Error) {
-                throw (Error) cause;
+            origin = QueryOrigin.current();
+            cleanupOrigin();
+            if (openResultSet == null && !resultSetPending) {
+                complete(null);
             }
-            return ite;
         }
 
-        private void cleanupOrigin() {
-            String current = QueryOrigin.current();
-            if ("JPA".equals(current) || "MONGODB".equals(current)) {
-                QueryOrigin.clear();
+        private void complete(LoggingResultSet resultSet) {
+            if (statistics != null && !excluded) {
+                statistics.record(fingerprintFor(rawSql), origin, durationNanos, failed, canceled, rows);
+            }
+            long totalNanos = resultSet != null ? System.nanoTime() - startNanos : durationNanos;
+            sampleRate = 1.0;
+            if (settings.tailSampling && shouldLogThisQuery && !settings.onlySlow
+                    && !keepUnsampled(resultSet, totalNanos)
+                    && !tailSampleHit()) {
+                sampledOut = true;
+                shouldLogThisQuery = false;
+            }
+            QueryExecutionListener listener = executionListener;
+            if (listener != null) {
+                notifyListener(listener);
+            }
+            if (settings.repeatThreshold > 0 && !excluded) {
+                checkRepeats();
             }
+            if (slowQueries != null && !excluded && durationNanos >= settings.slowQueryThresholdNanos) {
+                recordSlow(resultSet);
+            }
+            if (journal != null && !excluded) {
+                journal(resultSet);
+            }
+            if (settings.trackTransactions) {
+                TransactionTracker transaction = context.activeTransaction();
+                if (transaction != null) {
+                    String fingerprint = fingerprintFor(rawSql);
+                    transaction.record(durationNanos, fingerprint, lockProneFor(fingerprint), origin, failed);
+                }
+            }
+            if (shouldLogThisQuery || canceled || (failed && settings.logErrors && settings.shouldLog && !excluded)) {
+                logQuery(resultSet, totalNanos);
+            }
+            if (batchExecution) {
+                batchExecution = false;
+                clearBatch();
+            }
+            failure = null;
         }
-    }
 
-    private static boolean isExecuteLike(String methodName) {
-        for (String prefix : EXECUTE_METHOD_PREFIXES) {
-            if (methodName.startsWith(prefix)) {
+        private boolean keepUnsampled(LoggingResultSet resultSet, long totalNanos) {
+            if (failed || canceled || totalNanos >= settings.logThresholdNanos) {
                 return true;
             }
+            if (settings.keepRowsAbove <= 0) {
+                return false;
+            }
+            return (resultSet != null ? resultSet.getRows() : rows) > settings.keepRowsAbove;
         }
-        return false;
-    }
 
-    private static String extractSqlArgOrToString(Statement statement, Object[] args) {
-        if (args != null && args.length > 0 && args[0] instanceof String) {
-            return (String) args[0];
+        private boolean tailSampleHit() {
+            if (sampler != null) {
+                if (!sampler.tryAcquire(fingerprintFor(rawSql))) {
+                    return false;
+                }
+                sampleRate = sampler.getEffectiveRate();
+                return true;
+            }
+            double rate = settings.sampleRate;
+            if (!sampleHit(rate)) {
+                return false;
+            }
+            sampleRate = Math.min(1.0, rate);
+            return true;
         }
-        try {
-            String str = statement.toString();
-            return str;
-        } catch (Exception e) {
-            return "";
+
+        private void logQuery(LoggingResultSet resultSet, long totalNanos) {
+            QueryLoggerSettings settings = this.settings;
+            if (!settings.shouldLog) return;
+            if (settings.onlySlow && totalNanos < settings.logThresholdNanos && !(failed && settings.logErrors)) return;
+
+            QueryLoggerProperties.LogFormat format = settings.logFormat;
+            boolean includeParams = settings.logParams && settings.captureParams
+                && format != QueryLoggerProperties.LogFormat.BOUND && !batchExecution;
+            event.set(settings.loggerName, origin, rawSql, durationNanos, canceled,
+                format, includeParams);
+            event.setSqlEntry(sqlEntryFor(rawSql));
+            event.setSampleRate(sampleRate);
+            if (failure != null) {
+                event.setError(failure);
+            }
+            if (resultSet != null) {
+                event.setResultSet(resultSet.getRows(), resultSet.getFetchNanos(), totalNanos);
+            }
+            if (batchExecution) {
+                event.setBatch(batchSize, batchSample != null && batchSample.length() > 0
+                    ? batchSample.append(batchSize > settings.batchSampleRows ? ",...]" : "]").toString() : null);
+            }
+            queryLogger.logEvent(event);
         }
-    }
 
-    private static boolean isTimeoutOrCancel(Throwable throwable) {
-        if (throwable instanceof SQLTimeoutException) {
-            return true;
+        private void recordSlow(LoggingResultSet resultSet) {
+            FormattedSqlCache.Entry entry = sqlEntryFor(rawSql);
+            String sql = entry != null ? entry.getSanitized() : SqlFormatter.sanitize(rawSql);
+            String boundSql = settings.captureParams && !batchExecution && !params.isEmpty()
+                ? SqlFormatter.bindParameters(sql, params.toMap())
+                : null;
+            slowQueries.record(new SlowQueryStore.SlowQuery(System.currentTimeMillis(), durationNanos,
+                fingerprintFor(rawSql), sql, boundSql, origin, resultSet != null ? resultSet.getRows() : rows,
+                failed, canceled));
         }
-        String message = throwable.getMessage();
-        if (message == null) {
-            return false;
+
+        private void journal(LoggingResultSet resultSet) {
+            FormattedSqlCache.Entry entry = sqlEntryFor(rawSql);
+            int flags = (failed ? QueryJournal.FLAG_FAILED : 0)
+                | (canceled ? QueryJournal.FLAG_CANCELED : 0)
+                | (batchExecution ? QueryJournal.FLAG_BATCH : 0)
+                | (sampledOut ? QueryJournal.FLAG_SAMPLED_OUT : 0);
+            String paramText = null;
+            if (batchExecution) {
+                if (batchSample != null && batchSample.length() > 0) {
+                    paramText = batchSample.toString() + (batchSize > settings.batchSampleRows ? ",...]" : "]");
+                }
+            } else if (settings.captureParams && !params.isEmpty()) {
+                StringBuilder sb = new StringBuilder(params.size() * 16);
+                params.appendTo(sb);
+                paramText = sb.toString();
+            }
+            journal.append(System.currentTimeMillis(), durationNanos,
+                entry != null ? entry.getSanitized() : SqlFormatter.sanitize(rawSql), origin,
+                resultSet != null ? resultSet.getRows() : rows, flags, batchExecution ? batchSize : 0, paramText);
         }
-        String lowerMessage = message.toLowerCase(Locale.ROOT);
-        return lowerMessage.contains("cancel") || lowerMessage.contains("timeout");
-    }
 
-    private static String sanitize(String input) {
-        if (input == null || input.isEmpty()) {
-            return "";
+        private void checkRepeats() {
+            QueryScope scope = QueryScope.current();
+            if (scope == null) {
+                if (!settings.transactionRepeats || (scope = context.transactionScope()) == null) {
+                    return;
+                }
+            }
+            String fingerprint = fingerprintFor(rawSql);
+            if (scope.record(fingerprint) == settings.repeatThreshold) {
+                queryLogger.logWarning(formatRepeat(settings.loggerName, scope.getName(), settings.repeatThreshold, origin,
+                    fingerprint));
+            }
         }
-        int len = input.length();
-        char[] result = new char[len];
-        int writePos = 0;
-        boolean lastWasSpace = false;
-        
-        for (int i = 0; i < len; i++) {
-            char c = input.charAt(i);
-            if (c == '\n' || c == '\r') {
-                if (writePos == 0 || !lastWasSpace) {
-                    result[writePos++] = ' ';
-                    lastWasSpace = true;
+
+        private void notifyListener(QueryExecutionListener listener) {
+            try {
+                if (excluded) {
+                    listener.onExcluded();
+                    return;
                 }
-            } else if (Character.isWhitespace(c)) {
-                if (writePos == 0 || !lastWasSpace) {
-                    result[writePos++] = ' ';
-                    lastWasSpace = true;
+                if (sampledOut) {
+                    listener.onSampledOut();
                 }
-            } else {
-                result[writePos++] = c;
-                lastWasSpace = false;
+                listener.onExecuted(origin, fingerprintFor(rawSql), durationNanos, failed, canceled);
+            } catch (RuntimeException ignored) {
             }
         }
-        
-        while (writePos > 0 && result[writePos - 1] == ' ') {
-            writePos--;
+
+        private FormattedSqlCache.Entry sqlEntryFor(String sql) {
+            if (formatCache == null || sql == null || sql.isEmpty()) {
+                return null;
+            }
+            if (cachedSql != sql) {
+                cachedSqlEntry = formatCache.lookup(sql);
+                cachedSql = sql;
+            }
+            return cachedSqlEntry;
+        }
+
+        private boolean lockProneFor(String fingerprint) {
+            if (lockProneFingerprint != fingerprint) {
+                lockProne = isLockProne(fingerprint);
+                lockProneFingerprint = fingerprint;
+            }
+            return lockProne;
+        }
+
+        private boolean isExcluded(SqlFilter filter, String sql) {
+            if (filterSql != sql || filterRef != filter) {
+                FormattedSqlCache.Entry entry = sqlEntryFor(sql);
+                filterVerdict = entry != null ? entry.isExcludedBy(filter) : filter.isExcluded(sql);
+                filterSql = sql;
+                filterRef = filter;
+            }
+            return filterVerdict;
+        }
+
+        private String fingerprintFor(String sql) {
+            if (fingerprintSql != sql) {
+                FormattedSqlCache.Entry entry = sqlEntryFor(sql);
+                fingerprint = entry != null ? entry.getFingerprint() : SqlFingerprint.of(sql);
+                fingerprintSql = sql;
+            }
+            return fingerprint;
+        }
+
+        private void cleanupOrigin() {
+            String current = QueryOrigin.current();
+            if ("JPA".equals(current) || "MONGODB".equals(current)) {
+                QueryOrigin.clear();
+            }
         }
-        
-        return new String(result, 0, writePos);
     }
 
-    private static String formatParams(Map<Integer, Object> params) {
-        if (params == null || params.isEmpty()) {
-            return "{}";
+    static String formatSettings(String loggerName, String event, QueryLoggerSettings settings, long revertAfterMs) {
+        StringBuilder sb = new StringBuilder(192);
+        sb.append(loggerName).append(" - event=").append(event);
+        settings.appendTo(sb);
+        if (revertAfterMs > 0) {
+            sb.append(" revert_after_ms=").append(revertAfterMs);
         }
-        
-        List<Integer> keys = new ArrayList<>(params.keySet());
-        Collections.sort(keys);
-        
-        int size = keys.size();
-        StringBuilder sb = new StringBuilder(size * 20);
-        sb.append('{');
-        for (int i = 0; i < size; i++) {
-            if (i > 0) {
-                sb.append(", ");
-            }
-            Integer key = keys.get(i);
-            Object value = params.get(key);
-            sb.append(key).append(':');
-            if (value != null) {
-                sb.append(value.toString());
-            } else {
-                sb.append("null");
+        return sb.toString();
+    }
+
+    static String formatAcquire(String loggerName, long waitNanos, int active) {
+        StringBuilder sb = new StringBuilder(96);
+        sb.append(loggerName).append(" - event=connection_acquire wait_ms=");
+        appendMillis(sb, waitNanos);
+        sb.append(" active=").append(active);
+        return sb.toString();
+    }
+
+    static String formatLeak(String loggerName, long heldNanos, String thread, int active, Throwable acquiredAt) {
+        StringBuilder sb = new StringBuilder(acquiredAt != null ? 1024 : 128);
+        sb.append(loggerName).append(" - event=connection_leak_suspect held_ms=");
+        appendMillis(sb, heldNanos);
+        sb.append(" thread=\"").append(thread)
+          .append("\" active=").append(active);
+        if (acquiredAt != null) {
+            sb.append(" stack=\"");
+            int written = 0;
+            for (StackTraceElement frame : acquiredAt.getStackTrace()) {
+                if (frame.getClassName().startsWith("com.berkayd06.query_logger.")) {
+                    continue;
+                }
+                if (written > 0) {
+                    sb.append(" <- ");
+                }
+                sb.append(frame);
+                if (++written == MAX_LEAK_FRAMES) {
+                    break;
+                }
+            }
+            sb.append('"');
+        }
+        return sb.toString();
+    }
+
+    static String formatLeakReturned(String loggerName, long heldNanos, String thread) {
+        StringBuilder sb = new StringBuilder(96);
+        sb.append(loggerName).append(" - event=connection_leak_returned held_ms=");
+        appendMillis(sb, heldNanos);
+        sb.append(" thread=\"").append(thread).append('"');
+        return sb.toString();
+    }
+
+    private static void appendMillis(StringBuilder sb, long nanos) {
+        long micros = nanos / 1_000L;
+        sb.append(micros / 1_000L).append('.');
+        long frac = micros % 1_000L;
+        if (frac < 100) {
+            sb.append('0');
+            if (frac < 10) {
+                sb.append('0');
             }
         }
-        sb.append('}');
+        sb.append(frac);
+    }
+
+    static String formatTransaction(String loggerName, String outcome, String origin, long wallNanos, long dbNanos,
+                                    int statements, int failures, int lockProne, long longestNanos,
+                                    String longestFingerprint) {
+        StringBuilder sb = new StringBuilder(192 + (longestFingerprint != null ? longestFingerprint.length() : 0));
+        sb.append(loggerName)
+          .append(" - event=sql_transaction outcome=").append(outcome)
+          .append(" origin=").append(origin)
+          .append(" wall_ms=");
+        appendMillis(sb, wallNanos);
+        sb.append(" db_ms=");
+        appendMillis(sb, dbNanos);
+        sb.append(" statements=").append(statements)
+          .append(" failed=").append(failures)
+          .append(" lock_prone=").append(lockProne)
+          .append(" longest_ms=");
+        appendMillis(sb, longestNanos);
+        sb.append(" longest=\"").append(longestFingerprint).append('"');
+        return sb.toString();
+    }
+
+    static String formatRepeat(String loggerName, String scope, int count, String origin, String fingerprint) {
+        StringBuilder sb = new StringBuilder(96 + fingerprint.length());
+        sb.append(loggerName)
+          .append(" - event=sql_repeated scope=\"").append(scope)
+          .append("\" count=").append(count)
+          .append(" origin=").append(origin)
+          .append(" fingerprint=\"").append(fingerprint).append('"');
         return sb.toString();
     }
 
+    private static boolean isExecuteLike(String methodName) {
+        for (String prefix : EXECUTE_METHOD_PREFIXES) {
+            if (methodName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String statementToString(Statement statement) {
+        try {
+            String str = statement.toString();
+            return str != null ? str : "";
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
     private static boolean sampleHit(double rate) {
         if (rate >= 1.0) {
             return true;
@@ -0,0 +1,294 @@
+package com.berkayd06.query_logger.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class QueryJournal implements AutoCloseable {
+
+    static final int MAGIC = 0x514C4A31;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 48;
+    static final int OFFSET_LIMIT = 12;
+
+    static final int OFFSET_TIMESTAMP = 0;
+    static final int OFFSET_DURATION = 8;
+    static final int OFFSET_ROWS = 16;
+    static final int OFFSET_PARAM_OFFSET = 24;
+    static final int OFFSET_SQL_ID = 32;
+    static final int OFFSET_PARAM_LENGTH = 36;
+    static final int OFFSET_ORIGIN = 40;
+    static final int OFFSET_FLAGS = 41;
+    static final int OFFSET_BATCH_SIZE = 44;
+
+    public static final int FLAG_FAILED = 1;
+    public static final int FLAG_CANCELED = 2;
+    public static final int FLAG_BATCH = 4;
+    public static final int FLAG_SAMPLED_OUT = 8;
+    static final int FLAG_COMMITTED = 0x80;
+
+    static final String SEGMENT_PREFIX = "journal-";
+    static final String SEGMENT_SUFFIX = ".qlj";
+    static final String PARAMS_SUFFIX = ".qlp";
+    static final String DICTIONARY_FILE = "sql.dict";
+    static final String[] ORIGINS = {null, "NATIVE", "JPA", "MONGODB"};
+
+    private static final int OVERFLOW_SQL_ID = 0;
+
+    private static final class Segment {
+        final long sequence;
+        final MappedByteBuffer records;
+        final MappedByteBuffer params;
+        final AtomicLong position = new AtomicLong(HEADER_SIZE);
+        final AtomicLong paramPosition = new AtomicLong();
+        final AtomicInteger writers = new AtomicInteger();
+        final AtomicBoolean sealed = new AtomicBoolean();
+        final int capacity;
+        volatile boolean retired;
+
+        Segment(long sequence, MappedByteBuffer records, MappedByteBuffer params, int capacity) {
+            this.sequence = sequence;
+            this.records = records;
+            this.params = params;
+            this.capacity = capacity;
+        }
+    }
+
+    private final File directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final int maxSqlEntries;
+    private final ConcurrentHashMap<String, Integer> sqlIds = new ConcurrentHashMap<>();
+    private final RandomAccessFile dictionary;
+    private final Deque<Long> segments = new ArrayDeque<>();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile Segment current;
+    private volatile boolean closed;
+    private int nextSqlId = OVERFLOW_SQL_ID + 1;
+
+    public QueryJournal(File directory, int segmentSize, int maxSegments, int maxSqlEntries) throws IOException {
+        this.directory = directory;
+        this.segmentSize = Math.max(HEADER_SIZE + RECORD_SIZE * 16,
+            HEADER_SIZE + (segmentSize - HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE);
+        this.maxSegments = Math.max(1, maxSegments);
+        this.maxSqlEntries = Math.max(1, maxSqlEntries);
+        Files.createDirectories(directory.toPath());
+        loadDictionary();
+        this.dictionary = new RandomAccessFile(new File(directory, DICTIONARY_FILE), "rw");
+        this.dictionary.seek(this.dictionary.length());
+        long last = -1L;
+        for (long sequence : QueryJournalReader.listSegments(directory)) {
+            segments.addLast(sequence);
+            last = sequence;
+        }
+        this.current = openSegment(last + 1);
+    }
+
+    public void append(long timestampMillis, long durationNanos, String sql, String origin, long rows, int flags,
+                       int batchSize, String params) {
+        if (closed) return;
+        int sqlId = sqlId(sql);
+        while (true) {
+            Segment segment = current;
+            segment.writers.incrementAndGet();
+            try {
+                long offset = segment.position.getAndAdd(RECORD_SIZE);
+                if (offset + RECORD_SIZE > segment.capacity) {
+                    if (!rotate(segment)) {
+                        dropped.increment();
+                        return;
+                    }
+                    continue;
+                }
+                write(segment, (int) offset, timestampMillis, durationNanos, sqlId, origin, rows, flags, batchSize,
+                    params);
+                written.increment();
+                return;
+            } finally {
+                if (segment.writers.decrementAndGet() == 0 && segment.retired) {
+                    seal(segment);
+                }
+            }
+        }
+    }
+
+    private static void write(Segment segment, int base, long timestampMillis, long durationNanos, int sqlId,
+                              String origin, long rows, int flags, int batchSize, String params) {
+        long paramOffset = -1L;
+        int paramLength = 0;
+        if (params != null && !params.isEmpty()) {
+            byte[] bytes = params.getBytes(StandardCharsets.UTF_8);
+            long offset = segment.paramPosition.getAndAdd(bytes.length);
+            if (offset + bytes.length <= segment.params.capacity()) {
+                ByteBuffer target = segment.params.duplicate();
+                target.position((int) offset);
+                target.put(bytes);
+                paramOffset = offset;
+                paramLength = bytes.length;
+            }
+        }
+        MappedByteBuffer buffer = segment.records;
+        buffer.putLong(base + OFFSET_TIMESTAMP, timestampMillis);
+        buffer.putLong(base + OFFSET_DURATION, durationNanos);
+        buffer.putLong(base + OFFSET_ROWS, rows);
+        buffer.putLong(base + OFFSET_PARAM_OFFSET, paramOffset);
+        buffer.putInt(base + OFFSET_SQL_ID, sqlId);
+        buffer.putInt(base + OFFSET_PARAM_LENGTH, paramLength);
+        buffer.put(base + OFFSET_ORIGIN, originCode(origin));
+        buffer.putInt(base + OFFSET_BATCH_SIZE, batchSize);
+        buffer.put(base + OFFSET_FLAGS, (byte) ((flags & 0x7F) | FLAG_COMMITTED));
+    }
+
+    private int sqlId(String sql) {
+        if (sql == null) return OVERFLOW_SQL_ID;
+        Integer id = sqlIds.get(sql);
+        if (id != null) return id;
+        return registerSql(sql);
+    }
+
+    private synchronized int registerSql(String sql) {
+        Integer id = sqlIds.get(sql);
+        if (id != null) return id;
+        if (sqlIds.size() >= maxSqlEntries) return OVERFLOW_SQL_ID;
+        int assigned = nextSqlId;
+        byte[] bytes = sql.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer entry = ByteBuffer.allocate(8 + bytes.length);
+        entry.putInt(assigned).putInt(bytes.length).put(bytes);
+        try {
+            dictionary.write(entry.array());
+        } catch (IOException e) {
+            return OVERFLOW_SQL_ID;
+        }
+        nextSqlId++;
+        sqlIds.put(sql, assigned);
+        return assigned;
+    }
+
+    private void loadDictionary() throws IOException {
+        for (Map.Entry<Integer, String> entry : QueryJournalReader.readDictionary(directory).entrySet()) {
+            sqlIds.put(entry.getValue(), entry.getKey());
+            nextSqlId = Math.max(nextSqlId, entry.getKey() + 1);
+        }
+    }
+
+    private synchronized boolean rotate(Segment full) {
+        if (closed) return false;
+        if (current != full) return true;
+        boolean interrupted = Thread.interrupted();
+        try {
+            Segment next = openSegment(full.sequence + 1);
+            current = next;
+            retire(full);
+            return true;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Segment openSegment(long sequence) throws IOException {
+        File recordFile = segmentFile(directory, sequence);
+        File paramFile = paramsFile(directory, sequence);
+        try (RandomAccessFile file = new RandomAccessFile(recordFile, "rw")) {
+            MappedByteBuffer records = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            records.putInt(0, MAGIC);
+            records.putInt(4, VERSION);
+            records.putInt(8, RECORD_SIZE);
+            MappedByteBuffer params;
+            try (RandomAccessFile paramsFile = new RandomAccessFile(paramFile, "rw")) {
+                paramsFile.setLength(0);
+                params = paramsFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            }
+            segments.addLast(sequence);
+            while (segments.size() > maxSegments) {
+                long expired = segments.removeFirst();
+                segmentFile(directory, expired).delete();
+                paramsFile(directory, expired).delete();
+            }
+            return new Segment(sequence, records, params, segmentSize);
+        }
+    }
+
+    private static void retire(Segment segment) {
+        segment.retired = true;
+        if (segment.writers.get() == 0) {
+            seal(segment);
+        }
+    }
+
+    private static void seal(Segment segment) {
+        if (!segment.sealed.compareAndSet(false, true)) return;
+        segment.records.putInt(OFFSET_LIMIT, (int) Math.min(segment.position.get(), segment.capacity));
+        segment.records.force();
+        segment.params.force();
+    }
+
+    static File segmentFile(File directory, long sequence) {
+        return new File(directory, String.format("%s%08d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    }
+
+    static File paramsFile(File directory, long sequence) {
+        return new File(directory, String.format("%s%08d%s", SEGMENT_PREFIX, sequence, PARAMS_SUFFIX));
+    }
+
+    static byte originCode(String origin) {
+        for (int i = 1; i < ORIGINS.length; i++) {
+            if (ORIGINS[i].equals(origin)) {
+                return (byte) i;
+            }
+        }
+        return 0;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public int getSqlCount() {
+        return sqlIds.size();
+    }
+
+    public synchronized void flush() {
+        if (!closed) {
+            current.records.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        retire(current);
+        try {
+            dictionary.getFD().sync();
+            dictionary.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.berkayd06.query_logger.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+
+public final class QueryJournalReader {
+
+    public static final class Record {
+        private final long segment;
+        private final long timestampMillis;
+        private final long durationNanos;
+        private final String sql;
+        private final String origin;
+        private final long rows;
+        private final int flags;
+        private final int batchSize;
+        private final String params;
+
+        Record(long segment, long timestampMillis, long durationNanos, String sql, String origin, long rows,
+               int flags, int batchSize, String params) {
+            this.segment = segment;
+            this.timestampMillis = timestampMillis;
+            this.durationNanos = durationNanos;
+            this.sql = sql;
+            this.origin = origin;
+            this.rows = rows;
+            this.flags = flags;
+            this.batchSize = batchSize;
+            this.params = params;
+        }
+
+        public long getSegment() { return segment; }
+        public long getTimestampMillis() { return timestampMillis; }
+        public long getDurationNanos() { return durationNanos; }
+        public double getDurationMs() { return durationNanos / 1_000_000.0; }
+        public String getSql() { return sql; }
+        public String getOrigin() { return origin; }
+        public long getRows() { return rows; }
+        public int getFlags() { return flags; }
+        public boolean isFailed() { return (flags & QueryJournal.FLAG_FAILED) != 0; }
+        public boolean isCanceled() { return (flags & QueryJournal.FLAG_CANCELED) != 0; }
+        public boolean isBatch() { return (flags & QueryJournal.FLAG_BATCH) != 0; }
+        public boolean isSampledOut() { return (flags & QueryJournal.FLAG_SAMPLED_OUT) != 0; }
+        public int getBatchSize() { return batchSize; }
+        public String getParams() { return params; }
+    }
+
+    public interface RecordHandler {
+        boolean handle(Record record);
+    }
+
+    private final File directory;
+    private final Map<Integer, String> dictionary;
+
+    public QueryJournalReader(File directory) throws IOException {
+        this.directory = directory;
+        this.dictionary = readDictionary(directory);
+    }
+
+    public long read(Predicate<Record> filter, RecordHandler handler) throws IOException {
+        long[] matched = new long[1];
+        for (long sequence : listSegments(directory)) {
+            if (!scanSegment(sequence, filter, handler, matched)) {
+                break;
+            }
+        }
+        return matched[0];
+    }
+
+    public List<Long> getSegments() {
+        return listSegments(directory);
+    }
+
+    public long readSegment(long sequence, Predicate<Record> filter, RecordHandler handler) throws IOException {
+        long[] matched = new long[1];
+        scanSegment(sequence, filter, handler, matched);
+        return matched[0];
+    }
+
+    private boolean scanSegment(long sequence, Predicate<Record> filter, RecordHandler handler, long[] matched)
+            throws IOException {
+        File recordFile = QueryJournal.segmentFile(directory, sequence);
+        File paramFile = QueryJournal.paramsFile(directory, sequence);
+        try (FileChannel records = FileChannel.open(recordFile.toPath(), StandardOpenOption.READ);
+             RandomAccessFile params = paramFile.exists() ? new RandomAccessFile(paramFile, "r") : null) {
+            long size = records.size();
+            if (size < QueryJournal.HEADER_SIZE) return true;
+            MappedByteBuffer buffer = records.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != QueryJournal.MAGIC) return true;
+            int recordSize = buffer.getInt(8);
+            int limit = buffer.getInt(QueryJournal.OFFSET_LIMIT);
+            long end = limit >= QueryJournal.HEADER_SIZE && limit <= size ? limit : size;
+            for (long base = QueryJournal.HEADER_SIZE; base + recordSize <= end; base += recordSize) {
+                int offset = (int) base;
+                int flags = buffer.get(offset + QueryJournal.OFFSET_FLAGS) & 0xFF;
+                if ((flags & QueryJournal.FLAG_COMMITTED) == 0) continue;
+                Record record = decode(sequence, buffer, offset, flags & 0x7F, params);
+                if (filter != null && !filter.test(record)) continue;
+                matched[0]++;
+                if (!handler.handle(record)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public static boolean isJournal(File directory) {
+        return directory.isDirectory() && new File(directory, QueryJournal.DICTIONARY_FILE).exists();
+    }
+
+    private Record decode(long sequence, MappedByteBuffer buffer, int offset, int flags, RandomAccessFile params)
+            throws IOException {
+        int sqlId = buffer.getInt(offset + QueryJournal.OFFSET_SQL_ID);
+        long paramOffset = buffer.getLong(offset + QueryJournal.OFFSET_PARAM_OFFSET);
+        int paramLength = buffer.getInt(offset + QueryJournal.OFFSET_PARAM_LENGTH);
+        int originCode = buffer.get(offset + QueryJournal.OFFSET_ORIGIN);
+        String paramText = null;
+        if (params != null && paramOffset >= 0 && paramLength > 0 && paramOffset + paramLength <= params.length()) {
+            byte[] bytes = new byte[paramLength];
+            params.seek(paramOffset);
+            params.readFully(bytes);
+            paramText = new String(bytes, StandardCharsets.UTF_8);
+        }
+        String sql = dictionary.get(sqlId);
+        return new Record(sequence,
+            buffer.getLong(offset + QueryJournal.OFFSET_TIMESTAMP),
+            buffer.getLong(offset + QueryJournal.OFFSET_DURATION),
+            sql != null ? sql : "<unknown>",
+            originCode > 0 && originCode < QueryJournal.ORIGINS.length ? QueryJournal.ORIGINS[originCode] : "OTHER",
+            buffer.getLong(offset + QueryJournal.OFFSET_ROWS),
+            flags,
+            buffer.getInt(offset + QueryJournal.OFFSET_BATCH_SIZE),
+            paramText);
+    }
+
+    public int getSqlCount() {
+        return dictionary.size();
+    }
+
+    static List<Long> listSegments(File directory) {
+        List<Long> sequences = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files == null) return sequences;
+        for (File file : files) {
+            String name = file.getName();
+            if (name.startsWith(QueryJournal.SEGMENT_PREFIX) && name.endsWith(QueryJournal.SEGMENT_SUFFIX)) {
+                try {
+                    sequences.add(Long.parseLong(name.substring(QueryJournal.SEGMENT_PREFIX.length(),
+                        name.length() - QueryJournal.SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        Collections.sort(sequences);
+        return sequences;
+    }
+
+    static Map<Integer, String> readDictionary(File directory) throws IOException {
+        Map<Integer, String> dictionary = new HashMap<>();
+        File file = new File(directory, QueryJournal.DICTIONARY_FILE);
+        if (!file.exists()) return dictionary;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) return dictionary;
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            while (buffer.remaining() >= 8) {
+                int id = buffer.getInt();
+                int length = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) break;
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                dictionary.put(id, new String(bytes, StandardCharsets.UTF_8));
+            }
+        }
+        return dictionary;
+    }
+
+    static void appendRecord(StringBuilder sb, Record record) {
+        sb.append("event=sql_query ts=").append(Instant.ofEpochMilli(record.getTimestampMillis()))
+          .append(" origin=").append(record.getOrigin())
+          .append(" duration_ms=").append(String.format(Locale.ROOT, "%.3f", record.getDurationMs()))
+          .append(" canceled=").append(record.isCanceled())
+          .append(" failed=").append(record.isFailed())
+          .append(" rows=").append(record.getRows());
+        if (record.isBatch()) {
+            sb.append(" batch_size=").append(record.getBatchSize());
+        }
+        if (record.isSampledOut()) {
+            sb.append(" sampled_out=true");
+        }
+        sb.append(" sql=\"").append(record.getSql()).append('"');
+        if (record.getParams() != null) {
+            sb.append(" params=").append(record.getParams());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        PrintStream out = System.out;
+        if (args.length == 0 || "--help".equals(args[0])) {
+            out.println("Usage: QueryJournalReader <journal-dir> [--since=<instant|millis>] [--until=<instant|millis>]");
+            out.println("       [--min-ms=<ms>] [--sql=<text>] [--origin=<origin>] [--failed] [--canceled] [--limit=<n>]");
+            return;
+        }
+        File directory = new File(args[0]);
+        long since = Long.MIN_VALUE;
+        long until = Long.MAX_VALUE;
+        long minNanos = 0L;
+        String sqlText = null;
+        String origin = null;
+        boolean failedOnly = false;
+        boolean canceledOnly = false;
+        long limit = Long.MAX_VALUE;
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            String value = arg.indexOf('=') > 0 ? arg.substring(arg.indexOf('=') + 1) : null;
+            if (arg.startsWith("--since=")) {
+                since = parseTime(value);
+            } else if (arg.startsWith("--until=")) {
+                until = parseTime(value);
+            } else if (arg.startsWith("--min-ms=")) {
+                minNanos = (long) (Double.parseDouble(value) * 1_000_000L);
+            } else if (arg.startsWith("--sql=")) {
+                sqlText = value.toLowerCase(Locale.ROOT);
+            } else if (arg.startsWith("--origin=")) {
+                origin = value;
+            } else if (arg.equals("--failed")) {
+                failedOnly = true;
+            } else if (arg.equals("--canceled")) {
+                canceledOnly = true;
+            } else if (arg.startsWith("--limit=")) {
+                limit = Long.parseLong(value);
+            } else {
+                System.err.println("Unknown option: " + arg);
+                return;
+            }
+        }
+        final long from = since;
+        final long to = until;
+        final long min = minNanos;
+        final String text = sqlText;
+        final String originFilter = origin;
+        final boolean failed = failedOnly;
+        final boolean canceled = canceledOnly;
+        final long max = limit;
+        Predicate<Record> filter = record -> record.getTimestampMillis() >= from
+            && record.getTimestampMillis() < to
+            && record.getDurationNanos() >= min
+            && (text == null || record.getSql().toLowerCase(Locale.ROOT).contains(text))
+            && (originFilter == null || originFilter.equalsIgnoreCase(record.getOrigin()))
+            && (!failed || record.isFailed())
+            && (!canceled || record.isCanceled());
+        StringBuilder sb = new StringBuilder(256);
+        long[] printed = new long[1];
+        new QueryJournalReader(directory).read(filter, record -> {
+            sb.setLength(0);
+            appendRecord(sb, record);
+            out.println(sb);
+            return ++printed[0] < max;
+        });
+        out.flush();
+    }
+
+    private static long parseTime(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return Instant.parse(value).toEpochMilli();
+        }
+    }
+}
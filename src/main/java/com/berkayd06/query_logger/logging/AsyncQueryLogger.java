@@ -0,0 +1,304 @@
+package com.berkayd06.query_logger.logging;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public final class AsyncQueryLogger implements QueryLogger, AutoCloseable {
+
+    public enum OverflowPolicy {
+        DROP,
+        BLOCK
+    }
+
+    private static final int KIND_QUERY = 0;
+    private static final int KIND_QUERY_ERROR = 1;
+    private static final int KIND_WARNING = 2;
+    private static final int KIND_INFO = 3;
+    private static final int KIND_ERROR = 4;
+    private static final int KIND_EVENT = 5;
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final int MAX_BATCH_SIZE = 512;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private static final class Slot {
+        volatile long sequence;
+        int kind;
+        String loggerName;
+        String origin;
+        double durationMs;
+        boolean canceled;
+        String sql;
+        String params;
+        String exceptionType;
+        String message;
+        final QueryEvent event = new QueryEvent();
+
+        Slot(long sequence) {
+            this.sequence = sequence;
+        }
+
+        void clear() {
+            loggerName = null;
+            origin = null;
+            sql = null;
+            params = null;
+            exceptionType = null;
+            message = null;
+            if (kind == KIND_EVENT) {
+                event.reset();
+            }
+        }
+    }
+
+    private final PrintStream out;
+    private final PrintStream err;
+    private final OverflowPolicy overflowPolicy;
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private long head;
+    private volatile boolean running = true;
+    private volatile boolean writerParked;
+
+    public AsyncQueryLogger() {
+        this(System.out, System.err, 8192, OverflowPolicy.DROP);
+    }
+
+    public AsyncQueryLogger(PrintStream out, PrintStream err, int capacity, OverflowPolicy overflowPolicy) {
+        this.out = out;
+        this.err = err;
+        this.overflowPolicy = overflowPolicy != null ? overflowPolicy : OverflowPolicy.DROP;
+        int size = capacityFor(capacity);
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot(i);
+        }
+        this.mask = size - 1;
+        this.writer = new Thread(this::drainLoop, "query-logger-async-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    static int capacityFor(int requested) {
+        if (requested < 1 || requested > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Async buffer size must be between 1 and " + MAX_CAPACITY
+                + ", got " + requested);
+        }
+        return requested <= 2 ? 2 : Integer.highestOneBit(requested - 1) << 1;
+    }
+
+    @Override
+    public void logQuery(String loggerName, String origin, double durationMs, boolean canceled,
+                         String sql, String params) {
+        Slot slot = claim();
+        if (slot == null) return;
+        slot.kind = KIND_QUERY;
+        slot.loggerName = loggerName;
+        slot.origin = origin;
+        slot.durationMs = durationMs;
+        slot.canceled = canceled;
+        slot.sql = sql;
+        slot.params = params;
+        publish(slot);
+    }
+
+    @Override
+    public void logQueryWithoutParams(String loggerName, String origin, double durationMs,
+                                      boolean canceled, String sql) {
+        logQuery(loggerName, origin, durationMs, canceled, sql, null);
+    }
+
+    @Override
+    public void logQueryError(String loggerName, String origin, double durationMs, boolean canceled,
+                              String sql, String exceptionType, String errorMsg, String params) {
+        Slot slot = claim();
+        if (slot == null) return;
+        slot.kind = KIND_QUERY_ERROR;
+        slot.loggerName = loggerName;
+        slot.origin = origin;
+        slot.durationMs = durationMs;
+        slot.canceled = canceled;
+        slot.sql = sql;
+        slot.exceptionType = exceptionType;
+        slot.message = errorMsg;
+        slot.params = params;
+        publish(slot);
+    }
+
+    @Override
+    public void logQueryErrorWithoutParams(String loggerName, String origin, double durationMs,
+                                           boolean canceled, String sql, String exceptionType,
+                                           String errorMsg) {
+        logQueryError(loggerName, origin, durationMs, canceled, sql, exceptionType, errorMsg, null);
+    }
+
+    @Override
+    public void logEvent(QueryEvent event) {
+        Slot slot = claim();
+        if (slot == null) return;
+        slot.kind = KIND_EVENT;
+        slot.event.copyFrom(event);
+        publish(slot);
+    }
+
+    @Override
+    public void logWarning(String message) {
+        logMessage(KIND_WARNING, message);
+    }
+
+    @Override
+    public void logInfo(String message) {
+        logMessage(KIND_INFO, message);
+    }
+
+    @Override
+    public void logError(String message) {
+        logMessage(KIND_ERROR, message);
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    @Override
+    public void close() {
+        if (!running) return;
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void logMessage(int kind, String message) {
+        Slot slot = claim();
+        if (slot == null) return;
+        slot.kind = kind;
+        slot.message = message;
+        publish(slot);
+    }
+
+    private Slot claim() {
+        while (running) {
+            long pos = tail.get();
+            Slot slot = slots[(int) (pos & mask)];
+            long diff = slot.sequence - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    return slot;
+                }
+            } else if (diff < 0) {
+                if (overflowPolicy == OverflowPolicy.DROP) {
+                    dropped.incrementAndGet();
+                    return null;
+                }
+                LockSupport.unpark(writer);
+                LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+            }
+        }
+        dropped.incrementAndGet();
+        return null;
+    }
+
+    private void publish(Slot slot) {
+        slot.sequence = slot.sequence + 1;
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private boolean hasPending() {
+        return slots[(int) (head & mask)].sequence == head + 1;
+    }
+
+    private void drainLoop() {
+        StringBuilder outBatch = new StringBuilder(8192);
+        StringBuilder errBatch = new StringBuilder(1024);
+        while (true) {
+            int drained = drain(outBatch, errBatch);
+            if (drained > 0) {
+                continue;
+            }
+            if (!running) {
+                break;
+            }
+            writerParked = true;
+            if (!hasPending() && running) {
+                LockSupport.park(this);
+            }
+            writerParked = false;
+        }
+        drain(outBatch, errBatch);
+    }
+
+    private int drain(StringBuilder outBatch, StringBuilder errBatch) {
+        int drained = 0;
+        while (drained < MAX_BATCH_SIZE && hasPending()) {
+            Slot slot = slots[(int) (head & mask)];
+            try {
+                append(slot, slot.kind == KIND_QUERY || slot.kind == KIND_INFO
+                    || (slot.kind == KIND_EVENT && !slot.event.isError()) ? outBatch : errBatch);
+            } catch (Exception e) {
+            }
+            slot.clear();
+            slot.sequence = head + slots.length;
+            head++;
+            drained++;
+        }
+        write(out, outBatch);
+        write(err, errBatch);
+        return drained;
+    }
+
+    private static void append(Slot slot, StringBuilder sb) {
+        switch (slot.kind) {
+            case KIND_QUERY:
+                FastQueryLogger.appendQuery(sb, slot.loggerName, slot.origin, slot.durationMs,
+                    slot.canceled, slot.sql, slot.params);
+                break;
+            case KIND_QUERY_ERROR:
+                FastQueryLogger.appendQueryError(sb, slot.loggerName, slot.origin, slot.durationMs,
+                    slot.canceled, slot.sql, slot.exceptionType, slot.message, slot.params);
+                break;
+            case KIND_EVENT:
+                FastQueryLogger.appendEvent(sb, slot.event);
+                break;
+            case KIND_WARNING:
+                sb.append(FastQueryLogger.WARN_PREFIX).append(slot.message);
+                break;
+            case KIND_INFO:
+                sb.append(FastQueryLogger.INFO_PREFIX).append(slot.message);
+                break;
+            default:
+                sb.append(FastQueryLogger.ERROR_PREFIX).append(slot.message);
+                break;
+        }
+        sb.append(LINE_SEPARATOR);
+    }
+
+    private static void write(PrintStream stream, StringBuilder batch) {
+        if (batch.length() == 0) return;
+        try {
+            stream.print(batch.toString());
+            stream.flush();
+        } catch (Exception e) {
+        }
+        batch.setLength(0);
+    }
+}
@@ -4,14 +4,21 @@ import java.io.PrintStream;
 
 public final class FastQueryLogger implements QueryLogger {
     
-    private static final String INFO_PREFIX = "INFO  ";
-    private static final String WARN_PREFIX = "WARN  ";
-    private static final String ERROR_PREFIX = "ERROR ";
+    static final String INFO_PREFIX = "INFO  ";
+    static final String WARN_PREFIX = "WARN  ";
+    static final String ERROR_PREFIX = "ERROR ";
     private static final String EVENT_QUERY = " - event=sql_query origin=";
     private static final String DURATION_MS = " duration_ms=";
     private static final String CANCELED = " canceled=";
     private static final String SQL = " sql=\"";
     private static final String PARAMS = " params=";
+    private static final String BATCH_SIZE = " batch_size=";
+    private static final String AVG_ROW_MS = " avg_row_ms=";
+    private static final String BATCH_SAMPLE = " batch_sample=";
+    private static final String ROWS_FETCHED = " rows_fetched=";
+    private static final String FETCH_MS = " fetch_ms=";
+    private static final String TOTAL_MS = " total_ms=";
+    private static final String SAMPLE_RATE = " sample_rate=";
     private static final String EXCEPTION = " ex=";
     private static final String MSG = " msg=\"";
     private static final String QUOTE = "\"";
@@ -37,19 +44,7 @@ public final class FastQueryLogger implements QueryLogger {
                         String sql, String params) {
         try {
             StringBuilder sb = new StringBuilder(256);
-            sb.append(INFO_PREFIX)
-              .append(loggerName)
-              .append(EVENT_QUERY)
-              .append(origin)
-              .append(DURATION_MS);
-            appendDouble(sb, durationMs);
-            sb.append(CANCELED)
-              .append(canceled)
-              .append(SQL)
-              .append(sql)
-              .append(QUOTE)
-              .append(PARAMS)
-              .append(params);
+            appendQuery(sb, loggerName, origin, durationMs, canceled, sql, params);
             out.println(sb.toString());
         } catch (Exception e) {
         }
@@ -60,17 +55,7 @@ public final class FastQueryLogger implements QueryLogger {
                                      boolean canceled, String sql) {
         try {
             StringBuilder sb = new StringBuilder(256);
-            sb.append(INFO_PREFIX)
-              .append(loggerName)
-              .append(EVENT_QUERY)
-              .append(origin)
-              .append(DURATION_MS);
-            appendDouble(sb, durationMs);
-            sb.append(CANCELED)
-              .append(canceled)
-              .append(SQL)
-              .append(sql)
-              .append(QUOTE);
+            appendQuery(sb, loggerName, origin, durationMs, canceled, sql, null);
             out.println(sb.toString());
         } catch (Exception e) {
         }
@@ -81,24 +66,7 @@ public final class FastQueryLogger implements QueryLogger {
                              String sql, String exceptionType, String errorMsg, String params) {
         try {
             StringBuilder sb = new StringBuilder(384);
-            sb.append(ERROR_PREFIX)
-              .append(loggerName)
-              .append(EVENT_QUERY)
-              .append(origin)
-              .append(DURATION_MS);
-            appendDouble(sb, durationMs);
-            sb.append(CANCELED)
-              .append(canceled)
-              .append(SQL)
-              .append(sql)
-              .append(QUOTE)
-              .append(EXCEPTION)
-              .append(exceptionType)
-              .append(MSG)
-              .append(errorMsg)
-              .append(QUOTE)
-              .append(PARAMS)
-              .append(params);
+            appendQueryError(sb, loggerName, origin, durationMs, canceled, sql, exceptionType, errorMsg, params);
             err.println(sb.toString());
         } catch (Exception e) {
         }
@@ -110,27 +78,22 @@ public final class FastQueryLogger implements QueryLogger {
                                           String errorMsg) {
         try {
             StringBuilder sb = new StringBuilder(384);
-            sb.append(ERROR_PREFIX)
-              .append(loggerName)
-              .append(EVENT_QUERY)
-              .append(origin)
-              .append(DURATION_MS);
-            appendDouble(sb, durationMs);
-            sb.append(CANCELED)
-              .append(canceled)
-              .append(SQL)
-              .append(sql)
-              .append(QUOTE)
-              .append(EXCEPTION)
-              .append(exceptionType)
-              .append(MSG)
-              .append(errorMsg)
-              .append(QUOTE);
+            appendQueryError(sb, loggerName, origin, durationMs, canceled, sql, exceptionType, errorMsg, null);
             err.println(sb.toString());
         } catch (Exception e) {
         }
     }
     
+    @Override
+    public void logEvent(QueryEvent event) {
+        try {
+            StringBuilder sb = new StringBuilder(256);
+            appendEvent(sb, event);
+            (event.isError() ? err : out).println(sb.toString());
+        } catch (Exception e) {
+        }
+    }
+
     @Override
     public void logWarning(String message) {
         try {
@@ -158,6 +121,93 @@ public final class FastQueryLogger implements QueryLogger {
         }
     }
     
+    static void appendQuery(StringBuilder sb, String loggerName, String origin, double durationMs,
+                            boolean canceled, String sql, String params) {
+        sb.append(INFO_PREFIX)
+          .append(loggerName)
+          .append(EVENT_QUERY)
+          .append(origin)
+          .append(DURATION_MS);
+        appendDouble(sb, durationMs);
+        sb.append(CANCELED)
+          .append(canceled)
+          .append(SQL)
+          .append(sql)
+          .append(QUOTE);
+        if (params != null) {
+            sb.append(PARAMS)
+              .append(params);
+        }
+    }
+    
+    static void appendEvent(StringBuilder sb, QueryEvent event) {
+        String params = event.isIncludeParams() ? event.renderParams() : null;
+        if (event.isError()) {
+            appendQueryError(sb, event.getLoggerName(), event.getOrigin(), event.getDurationMs(), event.isCanceled(),
+                event.renderSql(), event.getErrorDescriptor(), event.getErrorMessage(), params);
+        } else {
+            appendQuery(sb, event.getLoggerName(), event.getOrigin(), event.getDurationMs(), event.isCanceled(),
+                event.renderSql(), params);
+        }
+        if (event.isBatch()) {
+            sb.append(BATCH_SIZE)
+              .append(event.getBatchSize())
+              .append(AVG_ROW_MS);
+            appendDouble(sb, event.getDurationMs() / event.getBatchSize());
+            if (event.getBatchSample() != null) {
+                sb.append(BATCH_SAMPLE)
+                  .append(event.getBatchSample());
+            }
+        }
+        if (event.hasResultSet()) {
+            sb.append(ROWS_FETCHED)
+              .append(event.getRowsFetched())
+              .append(FETCH_MS);
+            appendDouble(sb, event.getFetchMs());
+            sb.append(TOTAL_MS);
+            appendDouble(sb, event.getTotalMs());
+        }
+        if (event.getSampleRate() < 1.0) {
+            sb.append(SAMPLE_RATE);
+            appendRate(sb, event.getSampleRate());
+        }
+    }
+    
+    static void appendQueryError(StringBuilder sb, String loggerName, String origin, double durationMs,
+                                 boolean canceled, String sql, String exceptionType, String errorMsg,
+                                 String params) {
+        sb.append(ERROR_PREFIX)
+          .append(loggerName)
+          .append(EVENT_QUERY)
+          .append(origin)
+          .append(DURATION_MS);
+        appendDouble(sb, durationMs);
+        sb.append(CANCELED)
+          .append(canceled)
+          .append(SQL)
+          .append(sql)
+          .append(QUOTE)
+          .append(EXCEPTION)
+          .append(exceptionType)
+          .append(MSG)
+          .append(errorMsg)
+          .append(QUOTE);
+        if (params != null) {
+            sb.append(PARAMS)
+              .append(params);
+        }
+    }
+    
+    private static void appendRate(StringBuilder sb, double rate) {
+        long micros = Math.round(rate * 1_000_000.0);
+        sb.append(micros / 1_000_000L).append('.');
+        String frac = Long.toString(micros % 1_000_000L);
+        for (int i = frac.length(); i < 6; i++) {
+            sb.append('0');
+        }
+        sb.append(frac);
+    }
+    
     private static void appendDouble(StringBuilder sb, double value) {
         long intPart = (long) value;
         int fracPart = (int) ((value - intPart) * 1000);
@@ -0,0 +1,172 @@
+package com.berkayd06.query_logger.logging;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public final class ParameterBuffer {
+
+    private static final byte UNSET = 0;
+    private static final byte OBJECT = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte FLOAT = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte BOOLEAN = 6;
+
+    private static final byte[] NO_TYPES = new byte[0];
+    private static final long[] NO_BITS = new long[0];
+    private static final Object[] NO_OBJECTS = new Object[0];
+
+    private byte[] types = NO_TYPES;
+    private long[] bits = NO_BITS;
+    private Object[] objects = NO_OBJECTS;
+    private int count;
+
+    public void setObject(int index, Object value) {
+        if (!ensure(index)) return;
+        types[index - 1] = OBJECT;
+        objects[index - 1] = value;
+    }
+
+    public void setInt(int index, int value) {
+        setBits(index, INT, value);
+    }
+
+    public void setLong(int index, long value) {
+        setBits(index, LONG, value);
+    }
+
+    public void setFloat(int index, float value) {
+        setBits(index, FLOAT, Float.floatToRawIntBits(value));
+    }
+
+    public void setDouble(int index, double value) {
+        setBits(index, DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    public void setBoolean(int index, boolean value) {
+        setBits(index, BOOLEAN, value ? 1L : 0L);
+    }
+
+    private void setBits(int index, byte type, long value) {
+        if (!ensure(index)) return;
+        types[index - 1] = type;
+        bits[index - 1] = value;
+        objects[index - 1] = null;
+    }
+
+    private boolean ensure(int index) {
+        if (index < 1) return false;
+        if (index > types.length) {
+            int capacity = Math.max(index, Math.max(8, types.length * 2));
+            types = Arrays.copyOf(types, capacity);
+            bits = Arrays.copyOf(bits, capacity);
+            objects = Arrays.copyOf(objects, capacity);
+        }
+        if (index > count) {
+            count = index;
+        }
+        return true;
+    }
+
+    public void clear() {
+        if (count == 0) return;
+        Arrays.fill(types, 0, count, UNSET);
+        Arrays.fill(objects, 0, count, null);
+        count = 0;
+    }
+
+    public void copyFrom(ParameterBuffer other) {
+        clear();
+        if (other.count == 0) return;
+        if (other.count > types.length) {
+            types = new byte[other.count];
+            bits = new long[other.count];
+            objects = new Object[other.count];
+        }
+        System.arraycopy(other.types, 0, types, 0, other.count);
+        System.arraycopy(other.bits, 0, bits, 0, other.count);
+        System.arraycopy(other.objects, 0, objects, 0, other.count);
+        count = other.count;
+    }
+
+    public boolean isEmpty() {
+        for (int i = 0; i < count; i++) {
+            if (types[i] != UNSET) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public void appendTo(StringBuilder sb) {
+        sb.append('{');
+        boolean first = true;
+        for (int i = 0; i < count; i++) {
+            if (types[i] == UNSET) continue;
+            if (!first) {
+                sb.append(", ");
+            }
+            first = false;
+            sb.append(i + 1).append(':');
+            appendValue(sb, i);
+        }
+        sb.append('}');
+    }
+
+    private void appendValue(StringBuilder sb, int i) {
+        switch (types[i]) {
+            case INT:
+                sb.append((int) bits[i]);
+                break;
+            case LONG:
+                sb.append(bits[i]);
+                break;
+            case FLOAT:
+                sb.append(Float.intBitsToFloat((int) bits[i]));
+                break;
+            case DOUBLE:
+                sb.append(Double.longBitsToDouble(bits[i]));
+                break;
+            case BOOLEAN:
+                sb.append(bits[i] != 0L);
+                break;
+            default:
+                Object value = objects[i];
+                sb.append(value != null ? value.toString() : "null");
+                break;
+        }
+    }
+
+    public Map<Integer, Object> toMap() {
+        Map<Integer, Object> map = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            if (types[i] != UNSET) {
+                map.put(i + 1, valueAt(i));
+            }
+        }
+        return map;
+    }
+
+    private Object valueAt(int i) {
+        switch (types[i]) {
+            case INT:
+                return (int) bits[i];
+            case LONG:
+                return bits[i];
+            case FLOAT:
+                return Float.intBitsToFloat((int) bits[i]);
+            case DOUBLE:
+                return Double.longBitsToDouble(bits[i]);
+            case BOOLEAN:
+                return bits[i] != 0L;
+            default:
+                return objects[i];
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.berkayd06.query_logger.logging;
+
+import com.berkayd06.query_logger.config.QueryLoggerProperties;
+import com.berkayd06.query_logger.util.FormattedSqlCache;
+import com.berkayd06.query_logger.util.SqlFormatter;
+
+import java.sql.SQLException;
+
+public final class QueryEvent {
+
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 512;
+
+    private String loggerName;
+    private String origin;
+    private String sql;
+    private FormattedSqlCache.Entry sqlEntry;
+    private long durationNanos;
+    private boolean canceled;
+    private QueryLoggerProperties.LogFormat logFormat;
+    private boolean includeParams;
+    private final ParameterBuffer params = new ParameterBuffer();
+    private int batchSize;
+    private String batchSample;
+    private boolean resultSetTracked;
+    private double sampleRate = 1.0;
+    private long rowsFetched;
+    private long fetchNanos;
+    private long totalNanos;
+    private String errorType;
+    private String sqlState;
+    private int errorCode;
+    private String errorMessage;
+    private String errorDescriptor;
+
+    public void set(String loggerName, String origin, String sql, long durationNanos, boolean canceled,
+                    QueryLoggerProperties.LogFormat logFormat, boolean includeParams) {
+        this.loggerName = loggerName;
+        this.origin = origin;
+        this.sql = sql;
+        this.durationNanos = durationNanos;
+        this.canceled = canceled;
+        this.logFormat = logFormat;
+        this.includeParams = includeParams;
+        this.sqlEntry = null;
+        this.batchSize = 0;
+        this.batchSample = null;
+        this.resultSetTracked = false;
+        this.sampleRate = 1.0;
+        this.errorType = null;
+        this.sqlState = null;
+        this.errorCode = 0;
+        this.errorMessage = null;
+        this.errorDescriptor = null;
+    }
+
+    public void setBatch(int batchSize, String batchSample) {
+        this.batchSize = batchSize;
+        this.batchSample = batchSample;
+    }
+
+    public void setSqlEntry(FormattedSqlCache.Entry sqlEntry) {
+        this.sqlEntry = sqlEntry;
+    }
+
+    public void setResultSet(long rowsFetched, long fetchNanos, long totalNanos) {
+        this.resultSetTracked = true;
+        this.rowsFetched = rowsFetched;
+        this.fetchNanos = fetchNanos;
+        this.totalNanos = totalNanos;
+    }
+
+    public void setError(Throwable error) {
+        errorType = error.getClass().getName();
+        if (error instanceof SQLException) {
+            sqlState = ((SQLException) error).getSQLState();
+            errorCode = ((SQLException) error).getErrorCode();
+        }
+        errorMessage = sanitizeMessage(error.getMessage());
+        StringBuilder sb = new StringBuilder(errorType.length() + 40).append(errorType);
+        if (sqlState != null) {
+            sb.append(" sql_state=").append(sqlState);
+        }
+        if (errorCode != 0) {
+            sb.append(" error_code=").append(errorCode);
+        }
+        errorDescriptor = sb.toString();
+    }
+
+    private static String sanitizeMessage(String message) {
+        if (message == null) {
+            return "";
+        }
+        int length = Math.min(message.length(), MAX_ERROR_MESSAGE_LENGTH);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            char c = message.charAt(i);
+            if (c == '"') {
+                sb.append('\'');
+            } else if (c == '\n' || c == '\r' || c == '\t') {
+                sb.append(' ');
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public void setParam(int index, Object value) {
+        params.setObject(index, value);
+    }
+
+    public ParameterBuffer getParams() {
+        return params;
+    }
+
+    public void clearParams() {
+        params.clear();
+    }
+
+    public void copyFrom(QueryEvent other) {
+        set(other.loggerName, other.origin, other.sql, other.durationNanos, other.canceled,
+            other.logFormat, other.includeParams);
+        sqlEntry = other.sqlEntry;
+        batchSize = other.batchSize;
+        batchSample = other.batchSample;
+        resultSetTracked = other.resultSetTracked;
+        sampleRate = other.sampleRate;
+        rowsFetched = other.rowsFetched;
+        fetchNanos = other.fetchNanos;
+        totalNanos = other.totalNanos;
+        errorType = other.errorType;
+        sqlState = other.sqlState;
+        errorCode = other.errorCode;
+        errorMessage = other.errorMessage;
+        errorDescriptor = other.errorDescriptor;
+        params.copyFrom(other.params);
+    }
+
+    public void reset() {
+        set(null, null, null, 0L, false, null, false);
+        clearParams();
+    }
+
+    public String getLoggerName() { return loggerName; }
+    public String getOrigin() { return origin; }
+    public String getSql() { return sql; }
+    public long getDurationNanos() { return durationNanos; }
+    public double getDurationMs() { return durationNanos / 1_000_000.0; }
+    public boolean isCanceled() { return canceled; }
+    public QueryLoggerProperties.LogFormat getLogFormat() { return logFormat; }
+    public boolean isIncludeParams() { return includeParams; }
+    public boolean isBatch() { return batchSize > 0; }
+    public int getBatchSize() { return batchSize; }
+    public String getBatchSample() { return batchSample; }
+    public boolean hasResultSet() { return resultSetTracked; }
+    public double getSampleRate() { return sampleRate; }
+    public long getRowsFetched() { return rowsFetched; }
+    public double getFetchMs() { return fetchNanos / 1_000_000.0; }
+    public double getTotalMs() { return totalNanos / 1_000_000.0; }
+    public boolean isError() { return errorType != null; }
+    public String getErrorType() { return errorType; }
+    public String getSqlState() { return sqlState; }
+    public int getErrorCode() { return errorCode; }
+    public String getErrorMessage() { return errorMessage; }
+    public String getErrorDescriptor() { return errorDescriptor; }
+
+    public boolean hasParams() {
+        return !params.isEmpty();
+    }
+
+    public String renderSql() {
+        if (sql == null || sql.isEmpty()) {
+            return "";
+        }
+        if (logFormat == QueryLoggerProperties.LogFormat.BOUND && hasParams()) {
+            return SqlFormatter.bindParameters(formattedSql(), params.toMap());
+        }
+        if (logFormat == QueryLoggerProperties.LogFormat.FORMATTED) {
+            return formattedSql();
+        }
+        return sqlEntry != null ? sqlEntry.getSanitized() : SqlFormatter.sanitize(sql);
+    }
+
+    private String formattedSql() {
+        return sqlEntry != null ? sqlEntry.getFormatted() : SqlFormatter.format(sql);
+    }
+
+    public String renderParams() {
+        if (!hasParams()) {
+            return "{}";
+        }
+        StringBuilder sb = new StringBuilder(params.size() * 20);
+        params.appendTo(sb);
+        return sb.toString();
+    }
+}
@@ -14,6 +14,26 @@ public interface QueryLogger {
                                     boolean canceled, String sql, String exceptionType, 
                                     String errorMsg);
     
+    default void logEvent(QueryEvent event) {
+        String sql = event.renderSql();
+        if (event.isError()) {
+            if (event.isIncludeParams()) {
+                logQueryError(event.getLoggerName(), event.getOrigin(), event.getDurationMs(), event.isCanceled(),
+                              sql, event.getErrorDescriptor(), event.getErrorMessage(), event.renderParams());
+            } else {
+                logQueryErrorWithoutParams(event.getLoggerName(), event.getOrigin(), event.getDurationMs(),
+                                           event.isCanceled(), sql, event.getErrorDescriptor(),
+                                           event.getErrorMessage());
+            }
+        } else if (event.isIncludeParams()) {
+            logQuery(event.getLoggerName(), event.getOrigin(), event.getDurationMs(), event.isCanceled(),
+                     sql, event.renderParams());
+        } else {
+            logQueryWithoutParams(event.getLoggerName(), event.getOrigin(), event.getDurationMs(),
+                                  event.isCanceled(), sql);
+        }
+    }
+    
     void logWarning(String message);
     
     void logInfo(String message);
@@ -0,0 +1,350 @@
+package com.berkayd06.query_logger.metrics;
+
+import com.berkayd06.query_logger.core.QueryExecutionListener;
+import com.berkayd06.query_logger.core.QueryLoggingDataSource;
+import com.berkayd06.query_logger.logging.AsyncQueryLogger;
+import com.berkayd06.query_logger.sampling.AdaptiveSampler;
+import com.berkayd06.query_logger.stats.ConnectionStats;
+import com.berkayd06.query_logger.util.FormattedSqlCache;
+import com.berkayd06.query_logger.vendor.VendorDialectHelper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class QueryLoggerMetrics implements MeterBinder {
+
+    static final String OTHER_FINGERPRINT = "other";
+    private static final int MAX_TAG_LENGTH = 120;
+    private static final String[] OUTCOMES = {"success", "error", "canceled"};
+
+    private final Map<String, DataSource> dataSources;
+    private final int maxFingerprints;
+
+    public QueryLoggerMetrics(Map<String, DataSource> dataSources, int maxFingerprints) {
+        this.dataSources = dataSources;
+        this.maxFingerprints = Math.max(1, maxFingerprints);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Map.Entry<String, QueryLoggingDataSource> entry : QueryLoggingDataSource.findAll(dataSources).entrySet()) {
+            QueryLoggingDataSource dataSource = entry.getValue();
+            String name = entry.getKey();
+            if (!addRecorder(dataSource, registry, name)) {
+                continue;
+            }
+            bindLoggerHealth(registry, dataSource, name);
+            bindConnections(registry, dataSource.getConnectionStats(), name);
+        }
+    }
+
+    private boolean addRecorder(QueryLoggingDataSource dataSource, MeterRegistry registry, String name) {
+        synchronized (dataSource) {
+            QueryExecutionListener current = dataSource.getExecutionListener();
+            CompositeListener composite;
+            if (current instanceof CompositeListener) {
+                composite = (CompositeListener) current;
+            } else {
+                composite = new CompositeListener(current);
+            }
+            if (composite.isBound(registry)) {
+                return false;
+            }
+            composite.add(new Recorder(registry, dataSource, name, maxFingerprints));
+            if (composite != current) {
+                dataSource.setExecutionListener(composite);
+            }
+            return true;
+        }
+    }
+
+    private static void bindLoggerHealth(MeterRegistry registry, QueryLoggingDataSource dataSource, String name) {
+        Tags tags = Tags.of("datasource", name);
+        if (dataSource.getQueryLogger() instanceof AsyncQueryLogger) {
+            AsyncQueryLogger logger = (AsyncQueryLogger) dataSource.getQueryLogger();
+            FunctionCounter.builder("querylogger.async.dropped", logger, AsyncQueryLogger::getDroppedCount)
+                .tags(tags)
+                .description("Log events dropped because the async buffer was full")
+                .register(registry);
+            Gauge.builder("querylogger.async.capacity", logger, AsyncQueryLogger::getCapacity)
+                .tags(tags)
+                .register(registry);
+        }
+        AdaptiveSampler sampler = dataSource.getSampler();
+        if (sampler != null) {
+            Gauge.builder("querylogger.sampling.effective.rate", sampler, AdaptiveSampler::getEffectiveRate)
+                .tags(tags)
+                .description("Share of eligible queries kept by the adaptive sampler over the last second")
+                .register(registry);
+            FunctionCounter.builder("querylogger.sampling.kept", sampler, AdaptiveSampler::getKeptCount)
+                .tags(tags)
+                .register(registry);
+            FunctionCounter.builder("querylogger.sampling.offered", sampler, AdaptiveSampler::getOfferedCount)
+                .tags(tags)
+                .register(registry);
+        }
+        FormattedSqlCache cache = dataSource.getFormatCache();
+        if (cache != null) {
+            FunctionCounter.builder("querylogger.format.cache.hits", cache, FormattedSqlCache::getHitCount)
+                .tags(tags)
+                .register(registry);
+            FunctionCounter.builder("querylogger.format.cache.misses", cache, FormattedSqlCache::getMissCount)
+                .tags(tags)
+                .register(registry);
+            FunctionCounter.builder("querylogger.format.cache.evictions", cache, FormattedSqlCache::getEvictionCount)
+                .tags(tags)
+                .register(registry);
+            Gauge.builder("querylogger.format.cache.size", cache, FormattedSqlCache::size)
+                .tags(tags)
+                .register(registry);
+        }
+    }
+
+    private static void bindConnections(MeterRegistry registry, ConnectionStats connections, String name) {
+        if (connections == null) {
+            return;
+        }
+        Tags tags = Tags.of("datasource", name);
+        FunctionTimer.builder("querylogger.connection.acquire", connections,
+                ConnectionStats::getAcquireCount, ConnectionStats::getAcquireNanos, TimeUnit.NANOSECONDS)
+            .tags(tags)
+            .description("Time spent waiting for a connection from the target data source")
+            .register(registry);
+        FunctionTimer.builder("querylogger.connection.lease", connections,
+                ConnectionStats::getLeaseCount, ConnectionStats::getLeaseNanos, TimeUnit.NANOSECONDS)
+            .tags(tags)
+            .description("Time connections were held between acquire and close")
+            .register(registry);
+        Gauge.builder("querylogger.connection.active", connections, ConnectionStats::getActive)
+            .tags(tags)
+            .description("Connections currently leased")
+            .register(registry);
+        Gauge.builder("querylogger.connection.active.peak", connections, ConnectionStats::getPeakActive)
+            .tags(tags)
+            .register(registry);
+        FunctionCounter.builder("querylogger.connection.acquire.failures", connections,
+                ConnectionStats::getAcquireFailures)
+            .tags(tags)
+            .register(registry);
+        FunctionCounter.builder("querylogger.connection.leak.suspects", connections,
+                ConnectionStats::getLeakSuspects)
+            .tags(tags)
+            .description("Connections held longer than the leak threshold")
+            .register(registry);
+    }
+
+    static String statementKind(String fingerprint) {
+        int end = 0;
+        int length = fingerprint.length();
+        while (end < length && Character.isLetter(fingerprint.charAt(end))) {
+            end++;
+        }
+        String keyword = fingerprint.substring(0, end).toLowerCase(Locale.ROOT);
+        switch (keyword) {
+            case "select":
+            case "with":
+                return "select";
+            case "insert":
+            case "update":
+            case "delete":
+            case "merge":
+            case "call":
+                return keyword;
+            case "create":
+            case "alter":
+            case "drop":
+            case "truncate":
+                return "ddl";
+            default:
+                return "other";
+        }
+    }
+
+    private static final class CompositeListener implements QueryExecutionListener {
+        private volatile QueryExecutionListener[] listeners;
+
+        CompositeListener(QueryExecutionListener existing) {
+            this.listeners = existing != null
+                ? new QueryExecutionListener[] {existing}
+                : new QueryExecutionListener[0];
+        }
+
+        boolean isBound(MeterRegistry registry) {
+            for (QueryExecutionListener listener : listeners) {
+                if (listener instanceof Recorder && ((Recorder) listener).registry == registry) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(QueryExecutionListener listener) {
+            QueryExecutionListener[] current = listeners;
+            QueryExecutionListener[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = listener;
+            listeners = next;
+        }
+
+        @Override
+        public void onExecuted(String origin, String fingerprint, long durationNanos, boolean failed,
+                               boolean canceled) {
+            for (QueryExecutionListener listener : listeners) {
+                listener.onExecuted(origin, fingerprint, durationNanos, failed, canceled);
+            }
+        }
+
+        @Override
+        public void onExcluded() {
+            for (QueryExecutionListener listener : listeners) {
+                listener.onExcluded();
+            }
+        }
+
+        @Override
+        public void onSampledOut() {
+            for (QueryExecutionListener listener : listeners) {
+                listener.onSampledOut();
+            }
+        }
+    }
+
+    private static final class Recorder implements QueryExecutionListener {
+        private final MeterRegistry registry;
+        private final QueryLoggingDataSource dataSource;
+        private final String name;
+        private final int maxFingerprints;
+        private final ConcurrentHashMap<String, FingerprintMeters> meters = new ConcurrentHashMap<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final Counter canceled;
+        private final Counter sampledOut;
+        private final Counter excluded;
+        private volatile String vendor;
+
+        Recorder(MeterRegistry registry, QueryLoggingDataSource dataSource, String name, int maxFingerprints) {
+            this.registry = registry;
+            this.dataSource = dataSource;
+            this.name = name;
+            this.maxFingerprints = maxFingerprints;
+            this.canceled = Counter.builder("querylogger.query.canceled")
+                .tag("datasource", name)
+                .description("Queries cancelled or timed out")
+                .register(registry);
+            this.sampledOut = Counter.builder("querylogger.query.sampled.out")
+                .tag("datasource", name)
+                .description("Queries skipped by the sample rate")
+                .register(registry);
+            this.excluded = Counter.builder("querylogger.query.excluded")
+                .tag("datasource", name)
+                .description("Queries matching the exclude pattern")
+                .register(registry);
+        }
+
+        @Override
+        public void onExecuted(String origin, String fingerprint, long durationNanos, boolean failed,
+                               boolean wasCanceled) {
+            int outcome = wasCanceled ? 2 : failed ? 1 : 0;
+            metersFor(fingerprint).timer(origin, outcome).record(durationNanos, TimeUnit.NANOSECONDS);
+            if (wasCanceled) {
+                canceled.increment();
+            }
+        }
+
+        @Override
+        public void onExcluded() {
+            excluded.increment();
+        }
+
+        @Override
+        public void onSampledOut() {
+            sampledOut.increment();
+        }
+
+        private FingerprintMeters metersFor(String fingerprint) {
+            FingerprintMeters existing = meters.get(fingerprint);
+            if (existing != null) {
+                return existing;
+            }
+            if (size.get() >= maxFingerprints) {
+                return otherMeters();
+            }
+            FingerprintMeters created = new FingerprintMeters(fingerprint, tagValue(fingerprint));
+            existing = meters.putIfAbsent(fingerprint, created);
+            if (existing != null) {
+                return existing;
+            }
+            if (size.incrementAndGet() > maxFingerprints) {
+                meters.remove(fingerprint, created);
+                size.decrementAndGet();
+                return otherMeters();
+            }
+            return created;
+        }
+
+        private FingerprintMeters otherMeters() {
+            return meters.computeIfAbsent("\u0000" + OTHER_FINGERPRINT,
+                key -> new FingerprintMeters(OTHER_FINGERPRINT, OTHER_FINGERPRINT));
+        }
+
+        private String vendor() {
+            String result = vendor;
+            if (result == null) {
+                VendorDialectHelper.DatabaseVendor detected = dataSource.getVendor();
+                if (detected == null) {
+                    return VendorDialectHelper.DatabaseVendor.UNKNOWN.name().toLowerCase(Locale.ROOT);
+                }
+                result = detected.name().toLowerCase(Locale.ROOT);
+                vendor = result;
+            }
+            return result;
+        }
+
+        private static String tagValue(String fingerprint) {
+            return fingerprint.length() > MAX_TAG_LENGTH ? fingerprint.substring(0, MAX_TAG_LENGTH) : fingerprint;
+        }
+
+        private final class FingerprintMeters {
+            private final String kind;
+            private final String tag;
+            private final ConcurrentHashMap<String, Timer[]> byOrigin = new ConcurrentHashMap<>(4);
+
+            FingerprintMeters(String fingerprint, String tag) {
+                this.kind = statementKind(fingerprint);
+                this.tag = tag;
+            }
+
+            Timer timer(String origin, int outcome) {
+                Timer[] timers = byOrigin.get(origin);
+                if (timers == null) {
+                    timers = byOrigin.computeIfAbsent(origin, key -> new Timer[OUTCOMES.length]);
+                }
+                Timer timer = timers[outcome];
+                if (timer == null) {
+                    timer = Timer.builder("querylogger.query")
+                        .tag("datasource", name)
+                        .tag("origin", origin)
+                        .tag("vendor", vendor())
+                        .tag("kind", kind)
+                        .tag("fingerprint", tag)
+                        .tag("outcome", OUTCOMES[outcome])
+                        .description("Execution time of intercepted JDBC statements")
+                        .register(registry);
+                    timers[outcome] = timer;
+                }
+                return timer;
+            }
+        }
+    }
+}
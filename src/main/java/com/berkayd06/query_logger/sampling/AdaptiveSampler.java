@@ -0,0 +1,126 @@
+package com.berkayd06.query_logger.sampling;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class AdaptiveSampler {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Bucket global;
+    private final long globalInterval;
+    private final long globalTolerance;
+    private final long fingerprintInterval;
+    private final long fingerprintTolerance;
+    private final int maxFingerprints;
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder offered = new LongAdder();
+    private final LongAdder kept = new LongAdder();
+    private final LongAdder totalOffered = new LongAdder();
+    private final LongAdder totalKept = new LongAdder();
+    private final AtomicLong windowStart;
+    private volatile double effectiveRate = 1.0;
+
+    public AdaptiveSampler(double maxPerSecond, double maxPerFingerprintPerSecond, int maxFingerprints) {
+        long now = System.nanoTime();
+        this.global = new Bucket(now);
+        this.globalInterval = intervalFor(maxPerSecond);
+        this.globalTolerance = toleranceFor(maxPerSecond, globalInterval);
+        this.fingerprintInterval = intervalFor(maxPerFingerprintPerSecond);
+        this.fingerprintTolerance = toleranceFor(maxPerFingerprintPerSecond, fingerprintInterval);
+        this.maxFingerprints = Math.max(0, maxFingerprints);
+        this.windowStart = new AtomicLong(now);
+    }
+
+    public boolean tryAcquire(String fingerprint) {
+        long now = System.nanoTime();
+        roll(now);
+        offered.increment();
+        totalOffered.increment();
+        if (fingerprintInterval > 0 && fingerprint != null) {
+            Bucket bucket = bucketFor(fingerprint, now);
+            if (bucket != null && !bucket.tryAcquire(now, fingerprintInterval, fingerprintTolerance)) {
+                return false;
+            }
+        }
+        if (globalInterval == 0L || !global.tryAcquire(now, globalInterval, globalTolerance)) {
+            return false;
+        }
+        kept.increment();
+        totalKept.increment();
+        return true;
+    }
+
+    public double getEffectiveRate() {
+        return effectiveRate;
+    }
+
+    public long getOfferedCount() {
+        return totalOffered.sum();
+    }
+
+    public long getKeptCount() {
+        return totalKept.sum();
+    }
+
+    private Bucket bucketFor(String fingerprint, long now) {
+        Bucket bucket = buckets.get(fingerprint);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (size.get() >= maxFingerprints) {
+            return null;
+        }
+        Bucket created = new Bucket(now);
+        bucket = buckets.putIfAbsent(fingerprint, created);
+        if (bucket != null) {
+            return bucket;
+        }
+        size.incrementAndGet();
+        return created;
+    }
+
+    private void roll(long now) {
+        long start = windowStart.get();
+        if (now - start < WINDOW_NANOS || !windowStart.compareAndSet(start, now)) {
+            return;
+        }
+        long windowOffered = offered.sumThenReset();
+        long windowKept = kept.sumThenReset();
+        effectiveRate = windowOffered == 0 ? 1.0 : (double) windowKept / windowOffered;
+    }
+
+    private static long intervalFor(double perSecond) {
+        return perSecond > 0 ? Math.max(1L, (long) (WINDOW_NANOS / perSecond)) : 0L;
+    }
+
+    private static long toleranceFor(double perSecond, long interval) {
+        long burst = Math.max(1L, (long) perSecond);
+        return perSecond > 0 ? (burst - 1) * interval : 0L;
+    }
+
+    private static final class Bucket {
+        private final AtomicLong theoreticalArrival;
+
+        Bucket(long now) {
+            this.theoreticalArrival = new AtomicLong(now);
+        }
+
+        boolean tryAcquire(long now, long interval, long tolerance) {
+            for (;;) {
+                long current = theoreticalArrival.get();
+                long base = current - now > 0 ? current : now;
+                if (base - now > tolerance) {
+                    return false;
+                }
+                if (theoreticalArrival.compareAndSet(current, base + interval)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
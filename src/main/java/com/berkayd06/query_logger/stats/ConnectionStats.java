@@ -0,0 +1,60 @@
+package com.berkayd06.query_logger.stats;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class ConnectionStats {
+
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final LongAccumulator acquireMaxNanos = new LongAccumulator(Math::max, 0L);
+    private final LongAdder acquireFailures = new LongAdder();
+    private final LongAdder leaseCount = new LongAdder();
+    private final LongAdder leaseNanos = new LongAdder();
+    private final LongAccumulator leaseMaxNanos = new LongAccumulator(Math::max, 0L);
+    private final LongAdder leakSuspects = new LongAdder();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAccumulator peakActive = new LongAccumulator(Math::max, 0L);
+    private final LatencyHistogram acquireHistogram = new LatencyHistogram();
+    private final LatencyHistogram leaseHistogram = new LatencyHistogram();
+
+    public int recordAcquire(long waitNanos) {
+        acquireCount.increment();
+        acquireNanos.add(waitNanos);
+        acquireMaxNanos.accumulate(waitNanos);
+        acquireHistogram.record(waitNanos);
+        int leased = active.incrementAndGet();
+        peakActive.accumulate(leased);
+        return leased;
+    }
+
+    public void recordAcquireFailure() {
+        acquireFailures.increment();
+    }
+
+    public void recordRelease(long leaseDurationNanos) {
+        active.decrementAndGet();
+        leaseCount.increment();
+        leaseNanos.add(leaseDurationNanos);
+        leaseMaxNanos.accumulate(leaseDurationNanos);
+        leaseHistogram.record(leaseDurationNanos);
+    }
+
+    public void recordLeakSuspect() {
+        leakSuspects.increment();
+    }
+
+    public long getAcquireCount() { return acquireCount.sum(); }
+    public long getAcquireNanos() { return acquireNanos.sum(); }
+    public long getAcquireMaxNanos() { return acquireMaxNanos.get(); }
+    public long getAcquireFailures() { return acquireFailures.sum(); }
+    public long getLeaseCount() { return leaseCount.sum(); }
+    public long getLeaseNanos() { return leaseNanos.sum(); }
+    public long getLeaseMaxNanos() { return leaseMaxNanos.get(); }
+    public long getLeakSuspects() { return leakSuspects.sum(); }
+    public int getActive() { return active.get(); }
+    public long getPeakActive() { return peakActive.get(); }
+    public LatencyHistogram getAcquireHistogram() { return acquireHistogram; }
+    public LatencyHistogram getLeaseHistogram() { return leaseHistogram; }
+}
@@ -0,0 +1,144 @@
+package com.berkayd06.query_logger.stats;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class FingerprintStats {
+
+    private final String fingerprint;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder cancels = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAccumulator minNanos = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+    private final LatencyHistogram histogram;
+
+    FingerprintStats(String fingerprint, boolean withHistogram) {
+        this.fingerprint = fingerprint;
+        this.histogram = withHistogram ? new LatencyHistogram() : null;
+    }
+
+    void record(long durationNanos, boolean failed, boolean canceled, long rowCount) {
+        count.increment();
+        totalNanos.add(durationNanos);
+        minNanos.accumulate(durationNanos);
+        maxNanos.accumulate(durationNanos);
+        if (histogram != null) {
+            histogram.record(durationNanos);
+        }
+        if (failed) {
+            errors.increment();
+        }
+        if (canceled) {
+            cancels.increment();
+        }
+        if (rowCount > 0) {
+            rows.add(rowCount);
+        }
+    }
+
+    void record(long durationNanos, boolean failed, boolean canceled, long rowCount, long weight) {
+        count.add(weight);
+        totalNanos.add(durationNanos * weight);
+        minNanos.accumulate(durationNanos);
+        maxNanos.accumulate(durationNanos);
+        if (histogram != null) {
+            histogram.record(durationNanos, weight);
+        }
+        if (failed) {
+            errors.add(weight);
+        }
+        if (canceled) {
+            cancels.add(weight);
+        }
+        if (rowCount > 0) {
+            rows.add(rowCount * weight);
+        }
+    }
+
+    void merge(Snapshot snapshot) {
+        count.add(snapshot.getCount());
+        totalNanos.add(snapshot.getTotalNanos());
+        minNanos.accumulate(snapshot.getMinNanos());
+        maxNanos.accumulate(snapshot.getMaxNanos());
+        if (histogram != null && snapshot.getLatencies() != null) {
+            histogram.add(snapshot.getLatencies());
+        }
+        errors.add(snapshot.getErrorCount());
+        cancels.add(snapshot.getCancelCount());
+        rows.add(snapshot.getRowCount());
+    }
+
+    public String getFingerprint() { return fingerprint; }
+    public long getCount() { return count.sum(); }
+    public long getTotalNanos() { return totalNanos.sum(); }
+    public long getErrorCount() { return errors.sum(); }
+    public long getCancelCount() { return cancels.sum(); }
+    public long getRowCount() { return rows.sum(); }
+
+    public long getMinNanos() {
+        long min = minNanos.get();
+        return min == Long.MAX_VALUE ? 0L : min;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    public Snapshot snapshot(boolean reset) {
+        LatencyHistogram.Snapshot latencies = histogram != null ? histogram.snapshot(reset) : null;
+        if (!reset) {
+            return new Snapshot(fingerprint, getCount(), getTotalNanos(), getMinNanos(), getMaxNanos(),
+                getErrorCount(), getCancelCount(), getRowCount(), latencies);
+        }
+        long min = minNanos.getThenReset();
+        return new Snapshot(fingerprint, count.sumThenReset(), totalNanos.sumThenReset(),
+            min == Long.MAX_VALUE ? 0L : min, maxNanos.getThenReset(),
+            errors.sumThenReset(), cancels.sumThenReset(), rows.sumThenReset(), latencies);
+    }
+
+    public static final class Snapshot {
+        private final String fingerprint;
+        private final long count;
+        private final long totalNanos;
+        private final long minNanos;
+        private final long maxNanos;
+        private final long errorCount;
+        private final long cancelCount;
+        private final long rowCount;
+        private final LatencyHistogram.Snapshot latencies;
+
+        Snapshot(String fingerprint, long count, long totalNanos, long minNanos, long maxNanos,
+                 long errorCount, long cancelCount, long rowCount, LatencyHistogram.Snapshot latencies) {
+            this.fingerprint = fingerprint;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.minNanos = minNanos;
+            this.maxNanos = maxNanos;
+            this.errorCount = errorCount;
+            this.cancelCount = cancelCount;
+            this.rowCount = rowCount;
+            this.latencies = latencies;
+        }
+
+        public String getFingerprint() { return fingerprint; }
+        public long getCount() { return count; }
+        public long getTotalNanos() { return totalNanos; }
+        public long getMinNanos() { return minNanos; }
+        public long getMaxNanos() { return maxNanos; }
+        public long getErrorCount() { return errorCount; }
+        public long getCancelCount() { return cancelCount; }
+        public long getRowCount() { return rowCount; }
+        public LatencyHistogram.Snapshot getLatencies() { return latencies; }
+
+        public long getAvgNanos() {
+            return count == 0 ? 0L : totalNanos / count;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.berkayd06.query_logger.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT << 1;
+    private static final int MAX_EXPONENT = 31;
+    private static final long MAX_MICROS = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKET_COUNT = indexOf(MAX_MICROS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    public void record(long durationNanos) {
+        counts.incrementAndGet(bucket(durationNanos));
+    }
+
+    public void record(long durationNanos, long count) {
+        counts.addAndGet(bucket(durationNanos), count);
+    }
+
+    private static int bucket(long durationNanos) {
+        long micros = durationNanos / 1_000L;
+        if (micros < 0) {
+            micros = 0;
+        } else if (micros > MAX_MICROS) {
+            micros = MAX_MICROS;
+        }
+        return indexOf(micros);
+    }
+
+    public void add(Snapshot snapshot) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (snapshot.counts[i] != 0) {
+                counts.addAndGet(i, snapshot.counts[i]);
+            }
+        }
+    }
+
+    public Snapshot snapshot(boolean reset) {
+        long[] copy = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = reset ? counts.getAndSet(i, 0L) : counts.get(i);
+            copy[i] = count;
+            total += count;
+        }
+        return new Snapshot(copy, total);
+    }
+
+    static int indexOf(long micros) {
+        if (micros < LINEAR_LIMIT) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int top = (int) (micros >>> shift);
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKET_COUNT + (top - SUB_BUCKET_COUNT);
+    }
+
+    static long upperBoundMicros(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int offset = index - LINEAR_LIMIT;
+        int shift = offset / SUB_BUCKET_COUNT + 1;
+        long top = SUB_BUCKET_COUNT + offset % SUB_BUCKET_COUNT;
+        return ((top + 1) << shift) - 1;
+    }
+
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long totalCount;
+
+        Snapshot(long[] counts, long totalCount) {
+            this.counts = counts;
+            this.totalCount = totalCount;
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        public long getValueAtPercentileNanos(double percentile) {
+            if (totalCount == 0) {
+                return 0L;
+            }
+            double clamped = Math.min(100.0, Math.max(0.0, percentile));
+            long rank = Math.max(1L, (long) Math.ceil(clamped / 100.0 * totalCount));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return upperBoundMicros(i) * 1_000L;
+                }
+            }
+            return upperBoundMicros(counts.length - 1) * 1_000L;
+        }
+
+        public long getP50Nanos() { return getValueAtPercentileNanos(50.0); }
+        public long getP95Nanos() { return getValueAtPercentileNanos(95.0); }
+        public long getP99Nanos() { return getValueAtPercentileNanos(99.0); }
+        public long getP999Nanos() { return getValueAtPercentileNanos(99.9); }
+    }
+}
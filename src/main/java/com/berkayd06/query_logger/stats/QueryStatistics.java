@@ -0,0 +1,246 @@
+package com.berkayd06.query_logger.stats;
+
+import com.berkayd06.query_logger.logging.QueryLogger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class QueryStatistics implements AutoCloseable {
+
+    public static final String OTHER_FINGERPRINT = "<other>";
+
+    private final ConcurrentHashMap<String, FingerprintStats> stats = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final ConcurrentHashMap<String, LatencyHistogram> originHistograms = new ConcurrentHashMap<>();
+    private final int maxFingerprints;
+    private final boolean histograms;
+    private final FingerprintStats other;
+    private ScheduledExecutorService reporter;
+    private ScheduledFuture<?> reportTask;
+
+    public QueryStatistics(int maxFingerprints, boolean histograms) {
+        this.maxFingerprints = Math.max(1, maxFingerprints);
+        this.histograms = histograms;
+        this.other = new FingerprintStats(OTHER_FINGERPRINT, histograms);
+    }
+
+    public void record(String fingerprint, String origin, long durationNanos, boolean failed, boolean canceled,
+                       long rows) {
+        statsFor(fingerprint).record(durationNanos, failed, canceled, rows);
+        if (histograms && origin != null) {
+            originHistogram(origin).record(durationNanos);
+        }
+    }
+
+    public void record(String fingerprint, String origin, long durationNanos, boolean failed, boolean canceled,
+                       long rows, long weight) {
+        statsFor(fingerprint).record(durationNanos, failed, canceled, rows, weight);
+        if (histograms && origin != null) {
+            originHistogram(origin).record(durationNanos, weight);
+        }
+    }
+
+    public void merge(QueryStatistics source) {
+        for (FingerprintStats.Snapshot snapshot : source.snapshot(false)) {
+            FingerprintStats target = OTHER_FINGERPRINT.equals(snapshot.getFingerprint())
+                ? other
+                : statsFor(snapshot.getFingerprint());
+            target.merge(snapshot);
+        }
+        if (histograms) {
+            for (Map.Entry<String, LatencyHistogram.Snapshot> entry : source.snapshotOrigins(false).entrySet()) {
+                originHistogram(entry.getKey()).add(entry.getValue());
+            }
+        }
+    }
+
+    private LatencyHistogram originHistogram(String origin) {
+        LatencyHistogram histogram = originHistograms.get(origin);
+        if (histogram == null) {
+            histogram = originHistograms.computeIfAbsent(origin, key -> new LatencyHistogram());
+        }
+        return histogram;
+    }
+
+    private FingerprintStats statsFor(String fingerprint) {
+        FingerprintStats existing = stats.get(fingerprint);
+        if (existing != null) {
+            return existing;
+        }
+        if (size.get() >= maxFingerprints) {
+            return other;
+        }
+        FingerprintStats created = new FingerprintStats(fingerprint, histograms);
+        existing = stats.putIfAbsent(fingerprint, created);
+        if (existing != null) {
+            return existing;
+        }
+        if (size.incrementAndGet() > maxFingerprints) {
+            stats.remove(fingerprint, created);
+            size.decrementAndGet();
+            return other;
+        }
+        return created;
+    }
+
+    public FingerprintStats get(String fingerprint) {
+        return OTHER_FINGERPRINT.equals(fingerprint) ? other : stats.get(fingerprint);
+    }
+
+    public Collection<FingerprintStats> getAll() {
+        return Collections.unmodifiableCollection(stats.values());
+    }
+
+    public FingerprintStats getOther() {
+        return other;
+    }
+
+    public LatencyHistogram getOriginHistogram(String origin) {
+        return originHistograms.get(origin);
+    }
+
+    public Map<String, LatencyHistogram.Snapshot> snapshotOrigins(boolean reset) {
+        Map<String, LatencyHistogram.Snapshot> snapshots = new LinkedHashMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : originHistograms.entrySet()) {
+            LatencyHistogram.Snapshot snapshot = entry.getValue().snapshot(reset);
+            if (snapshot.getTotalCount() > 0) {
+                snapshots.put(entry.getKey(), snapshot);
+            }
+        }
+        return snapshots;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public int getMaxFingerprints() {
+        return maxFingerprints;
+    }
+
+    public List<FingerprintStats.Snapshot> snapshot(boolean reset) {
+        List<FingerprintStats.Snapshot> snapshots = new ArrayList<>(stats.size() + 1);
+        for (FingerprintStats entry : stats.values()) {
+            FingerprintStats.Snapshot snapshot = entry.snapshot(reset);
+            if (snapshot.getCount() > 0) {
+                snapshots.add(snapshot);
+            }
+        }
+        FingerprintStats.Snapshot otherSnapshot = other.snapshot(reset);
+        if (otherSnapshot.getCount() > 0) {
+            snapshots.add(otherSnapshot);
+        }
+        return snapshots;
+    }
+
+    public void report(QueryLogger logger, String loggerName, boolean reset) {
+        for (FingerprintStats.Snapshot snapshot : snapshot(reset)) {
+            logger.logInfo(formatSummary(loggerName, snapshot));
+        }
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : snapshotOrigins(reset).entrySet()) {
+            logger.logInfo(formatLatency(loggerName, entry.getKey(), entry.getValue()));
+        }
+    }
+
+    static String formatLatency(String loggerName, String origin, LatencyHistogram.Snapshot latencies) {
+        StringBuilder sb = new StringBuilder(160);
+        sb.append(loggerName)
+          .append(" - event=sql_latency origin=").append(origin)
+          .append(" count=").append(latencies.getTotalCount());
+        appendPercentiles(sb, latencies);
+        return sb.toString();
+    }
+
+    private static void appendPercentiles(StringBuilder sb, LatencyHistogram.Snapshot latencies) {
+        sb.append(" p50_ms=");
+        appendMillis(sb, latencies.getP50Nanos());
+        sb.append(" p95_ms=");
+        appendMillis(sb, latencies.getP95Nanos());
+        sb.append(" p99_ms=");
+        appendMillis(sb, latencies.getP99Nanos());
+        sb.append(" p999_ms=");
+        appendMillis(sb, latencies.getP999Nanos());
+    }
+
+    static String formatSummary(String loggerName, FingerprintStats.Snapshot snapshot) {
+        StringBuilder sb = new StringBuilder(128 + snapshot.getFingerprint().length());
+        sb.append(loggerName)
+          .append(" - event=sql_stats count=").append(snapshot.getCount())
+          .append(" total_ms=");
+        appendMillis(sb, snapshot.getTotalNanos());
+        sb.append(" avg_ms=");
+        appendMillis(sb, snapshot.getAvgNanos());
+        sb.append(" min_ms=");
+        appendMillis(sb, snapshot.getMinNanos());
+        sb.append(" max_ms=");
+        appendMillis(sb, snapshot.getMaxNanos());
+        if (snapshot.getLatencies() != null) {
+            appendPercentiles(sb, snapshot.getLatencies());
+        }
+        sb.append(" errors=").append(snapshot.getErrorCount())
+          .append(" canceled=").append(snapshot.getCancelCount())
+          .append(" rows=").append(snapshot.getRowCount())
+          .append(" fingerprint=\"").append(snapshot.getFingerprint()).append('"');
+        return sb.toString();
+    }
+
+    private static void appendMillis(StringBuilder sb, long nanos) {
+        long micros = nanos / 1_000L;
+        sb.append(micros / 1_000L).append('.');
+        long frac = micros % 1_000L;
+        if (frac < 100) {
+            sb.append('0');
+            if (frac < 10) {
+                sb.append('0');
+            }
+        }
+        sb.append(frac);
+    }
+
+    public synchronized void startReporting(QueryLogger logger, String loggerName, long intervalMs, boolean reset) {
+        if (reportTask != null || intervalMs <= 0) {
+            return;
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "query-logger-stats-reporter");
+            t.setDaemon(true);
+            return t;
+        });
+        startReporting(reporter, logger, loggerName, intervalMs, reset);
+    }
+
+    public synchronized void startReporting(ScheduledExecutorService scheduler, QueryLogger logger, String loggerName,
+                                            long intervalMs, boolean reset) {
+        if (reportTask != null || intervalMs <= 0) {
+            return;
+        }
+        reportTask = scheduler.scheduleAtFixedRate(() -> {
+            try {
+                report(logger, loggerName, reset);
+            } catch (Exception ignored) {
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (reportTask != null) {
+            reportTask.cancel(false);
+            reportTask = null;
+        }
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+}
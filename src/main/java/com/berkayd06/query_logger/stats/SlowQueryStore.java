@@ -0,0 +1,211 @@
+package com.berkayd06.query_logger.stats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class SlowQueryStore {
+
+    public static final int MAX_SQL_LENGTH = 4096;
+
+    private static final Comparator<SlowQuery> SLOWEST_FIRST =
+        (a, b) -> Long.compare(b.durationNanos, a.durationNanos);
+
+    public static final class SlowQuery {
+        private final long timestampMillis;
+        private final long durationNanos;
+        private final String fingerprint;
+        private final String sql;
+        private final String boundSql;
+        private final String origin;
+        private final long rows;
+        private final boolean failed;
+        private final boolean canceled;
+
+        public SlowQuery(long timestampMillis, long durationNanos, String fingerprint, String sql, String boundSql,
+                         String origin, long rows, boolean failed, boolean canceled) {
+            this.timestampMillis = timestampMillis;
+            this.durationNanos = durationNanos;
+            this.fingerprint = fingerprint;
+            this.sql = truncate(sql);
+            this.boundSql = truncate(boundSql);
+            this.origin = origin;
+            this.rows = rows;
+            this.failed = failed;
+            this.canceled = canceled;
+        }
+
+        public long getTimestampMillis() { return timestampMillis; }
+        public long getDurationNanos() { return durationNanos; }
+        public double getDurationMs() { return durationNanos / 1_000_000.0; }
+        public String getFingerprint() { return fingerprint; }
+        public String getSql() { return sql; }
+        public String getBoundSql() { return boundSql; }
+        public String getOrigin() { return origin; }
+        public long getRows() { return rows; }
+        public boolean isFailed() { return failed; }
+        public boolean isCanceled() { return canceled; }
+
+        private static String truncate(String value) {
+            return value != null && value.length() > MAX_SQL_LENGTH ? value.substring(0, MAX_SQL_LENGTH) : value;
+        }
+    }
+
+    private final AtomicReferenceArray<SlowQuery> recent;
+    private final int mask;
+    private final AtomicLong written = new AtomicLong();
+    private final LongAdder recorded = new LongAdder();
+    private final int topN;
+    private final long windowMs;
+    private final SlowQuery[] heap;
+    private int heapSize;
+    private long windowStartMillis;
+    private volatile long windowEndMillis;
+    private volatile long admitAboveNanos = -1L;
+    private List<SlowQuery> previousTop = Collections.emptyList();
+    private long previousWindowStartMillis;
+
+    public SlowQueryStore(int capacity, int topN, long windowMs) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.recent = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.topN = Math.max(1, topN);
+        this.windowMs = Math.max(1000L, windowMs);
+        this.heap = new SlowQuery[this.topN];
+        this.windowStartMillis = System.currentTimeMillis();
+        this.windowEndMillis = windowStartMillis + this.windowMs;
+    }
+
+    public void record(SlowQuery query) {
+        recorded.increment();
+        recent.set((int) (written.getAndIncrement() & mask), query);
+        if (query.durationNanos > admitAboveNanos || query.timestampMillis >= windowEndMillis) {
+            offerTop(query);
+        }
+    }
+
+    private synchronized void offerTop(SlowQuery query) {
+        if (query.timestampMillis >= windowEndMillis) {
+            rotate(query.timestampMillis);
+        }
+        if (heapSize < heap.length) {
+            heap[heapSize] = query;
+            siftUp(heapSize++);
+        } else if (query.durationNanos > heap[0].durationNanos) {
+            heap[0] = query;
+            siftDown(0);
+        }
+        if (heapSize == heap.length) {
+            admitAboveNanos = heap[0].durationNanos;
+        }
+    }
+
+    private void rotate(long nowMillis) {
+        previousTop = sortedTop();
+        previousWindowStartMillis = windowStartMillis;
+        Arrays.fill(heap, null);
+        heapSize = 0;
+        admitAboveNanos = -1L;
+        long elapsedWindows = (nowMillis - windowStartMillis) / windowMs;
+        windowStartMillis += elapsedWindows * windowMs;
+        if (elapsedWindows > 1) {
+            previousTop = Collections.emptyList();
+            previousWindowStartMillis = windowStartMillis - windowMs;
+        }
+        windowEndMillis = windowStartMillis + windowMs;
+    }
+
+    private void siftUp(int i) {
+        SlowQuery item = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent].durationNanos <= item.durationNanos) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = item;
+    }
+
+    private void siftDown(int i) {
+        SlowQuery item = heap[i];
+        int half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < heapSize && heap[right].durationNanos < heap[child].durationNanos) {
+                child = right;
+            }
+            if (item.durationNanos <= heap[child].durationNanos) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = item;
+    }
+
+    private List<SlowQuery> sortedTop() {
+        List<SlowQuery> top = new ArrayList<>(heapSize);
+        for (int i = 0; i < heapSize; i++) {
+            top.add(heap[i]);
+        }
+        top.sort(SLOWEST_FIRST);
+        return top;
+    }
+
+    public List<SlowQuery> getRecent() {
+        long end = written.get();
+        long start = Math.max(0L, end - recent.length());
+        List<SlowQuery> result = new ArrayList<>((int) (end - start));
+        Set<SlowQuery> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (long i = end - 1; i >= start; i--) {
+            SlowQuery query = recent.get((int) (i & mask));
+            if (query != null && seen.add(query)) {
+                result.add(query);
+            }
+        }
+        return result;
+    }
+
+    public synchronized List<SlowQuery> getTop() {
+        long now = System.currentTimeMillis();
+        if (now >= windowEndMillis) {
+            rotate(now);
+        }
+        return sortedTop();
+    }
+
+    public synchronized List<SlowQuery> getPreviousTop() {
+        getTop();
+        return previousTop;
+    }
+
+    public synchronized long getWindowStartMillis() {
+        return windowStartMillis;
+    }
+
+    public synchronized long getPreviousWindowStartMillis() {
+        return previousWindowStartMillis;
+    }
+
+    public long getWindowMs() {
+        return windowMs;
+    }
+
+    public int getCapacity() {
+        return recent.length();
+    }
+
+    public int getTopN() {
+        return topN;
+    }
+
+    public long getRecordedCount() {
+        return recorded.sum();
+    }
+}
@@ -0,0 +1,201 @@
+package com.berkayd06.query_logger.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class FormattedSqlCache {
+
+    private static final int SEGMENT_COUNT = 16;
+    private static final double PROTECTED_RATIO = 0.8;
+
+    public static final class Entry {
+        private final String sql;
+        private volatile String sanitized;
+        private volatile String formatted;
+        private volatile String fingerprint;
+        private volatile long verdict;
+
+        Entry(String sql) {
+            this.sql = sql;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public String getSanitized() {
+            String result = sanitized;
+            if (result == null) {
+                result = SqlFormatter.sanitize(sql);
+                sanitized = result;
+            }
+            return result;
+        }
+
+        public String getFormatted() {
+            String result = formatted;
+            if (result == null) {
+                result = SqlFormatter.format(sql);
+                formatted = result;
+            }
+            return result;
+        }
+
+        public String getFingerprint() {
+            String result = fingerprint;
+            if (result == null) {
+                result = SqlFingerprint.of(sql);
+                fingerprint = result;
+            }
+            return result;
+        }
+
+        public boolean isExcludedBy(SqlFilter filter) {
+            long result = verdict;
+            if (result >>> 2 != filter.id) {
+                result = ((long) filter.id << 2) | (filter.isExcluded(sql) ? 2L : 1L);
+                verdict = result;
+            }
+            return (result & 3L) == 2L;
+        }
+
+        int weight() {
+            return sql.length();
+        }
+    }
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public FormattedSqlCache(int maxEntries, long maxWeight) {
+        int entriesPerSegment = Math.max(1, maxEntries / SEGMENT_COUNT);
+        long weightPerSegment = Math.max(1L, maxWeight / SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(entriesPerSegment, weightPerSegment);
+        }
+    }
+
+    public Entry lookup(String sql) {
+        int h = sql.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (SEGMENT_COUNT - 1)].lookup(sql);
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long weight() {
+        long weight = 0;
+        for (Segment segment : segments) {
+            weight += segment.weight();
+        }
+        return weight;
+    }
+
+    private final class Segment {
+        private final int maxEntries;
+        private final long maxWeight;
+        private final int maxProtectedEntries;
+        private final long maxProtectedWeight;
+        private final LinkedHashMap<String, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<String, Entry> protectedEntries = new LinkedHashMap<>(16, 0.75f, true);
+        private long totalWeight;
+        private long protectedWeight;
+
+        Segment(int maxEntries, long maxWeight) {
+            this.maxEntries = maxEntries;
+            this.maxWeight = maxWeight;
+            this.maxProtectedEntries = Math.max(1, (int) (maxEntries * PROTECTED_RATIO));
+            this.maxProtectedWeight = Math.max(1L, (long) (maxWeight * PROTECTED_RATIO));
+        }
+
+        synchronized Entry lookup(String sql) {
+            Entry entry = protectedEntries.get(sql);
+            if (entry != null) {
+                hits.incrementAndGet();
+                return entry;
+            }
+            entry = probation.remove(sql);
+            if (entry != null) {
+                hits.incrementAndGet();
+                protectedEntries.put(sql, entry);
+                protectedWeight += entry.weight();
+                demoteOverflow();
+                return entry;
+            }
+
+            misses.incrementAndGet();
+            entry = new Entry(sql);
+            if (entry.weight() > maxWeight) {
+                return entry;
+            }
+            probation.put(sql, entry);
+            totalWeight += entry.weight();
+            evictOverflow();
+            return entry;
+        }
+
+        synchronized int size() {
+            return probation.size() + protectedEntries.size();
+        }
+
+        synchronized long weight() {
+            return totalWeight;
+        }
+
+        private void demoteOverflow() {
+            while (protectedEntries.size() > maxProtectedEntries || protectedWeight > maxProtectedWeight) {
+                Entry eldest = removeEldest(protectedEntries);
+                protectedWeight -= eldest.weight();
+                probation.put(eldest.sql, eldest);
+            }
+        }
+
+        private void evictOverflow() {
+            while (probation.size() + protectedEntries.size() > maxEntries || totalWeight > maxWeight) {
+                Entry eldest;
+                if (!probation.isEmpty()) {
+                    eldest = removeEldest(probation);
+                } else {
+                    eldest = removeEldest(protectedEntries);
+                    protectedWeight -= eldest.weight();
+                }
+                totalWeight -= eldest.weight();
+                evictions.incrementAndGet();
+            }
+        }
+
+        private Entry removeEldest(LinkedHashMap<String, Entry> map) {
+            Iterator<Entry> it = map.values().iterator();
+            Entry eldest = it.next();
+            it.remove();
+            return eldest;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.berkayd06.query_logger.util;
+
+import java.util.Arrays;
+
+public final class QueryScope implements AutoCloseable {
+    private static final ThreadLocal<QueryScope> CURRENT = new ThreadLocal<QueryScope>();
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_FINGERPRINTS = 4096;
+
+    private final String name;
+    private int depth;
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int size;
+
+    public QueryScope(String name) {
+        this.name = name;
+    }
+
+    public static QueryScope open(String name) {
+        QueryScope scope = CURRENT.get();
+        if (scope == null) {
+            scope = new QueryScope(name);
+            CURRENT.set(scope);
+        }
+        scope.depth++;
+        return scope;
+    }
+
+    public static QueryScope current() {
+        return CURRENT.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int record(String fingerprint) {
+        int mask = keys.length - 1;
+        int i = spread(fingerprint.hashCode()) & mask;
+        String key;
+        while ((key = keys[i]) != null) {
+            if (key.equals(fingerprint)) {
+                return ++counts[i];
+            }
+            i = (i + 1) & mask;
+        }
+        if (size >= MAX_FINGERPRINTS) {
+            return 0;
+        }
+        keys[i] = fingerprint;
+        counts[i] = 1;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return 1;
+    }
+
+    public int count(String fingerprint) {
+        int mask = keys.length - 1;
+        int i = spread(fingerprint.hashCode()) & mask;
+        String key;
+        while ((key = keys[i]) != null) {
+            if (key.equals(fingerprint)) {
+                return counts[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void reset() {
+        if (size == 0) return;
+        if (keys.length > INITIAL_CAPACITY * 8) {
+            keys = new String[INITIAL_CAPACITY];
+            counts = new int[INITIAL_CAPACITY];
+        } else {
+            Arrays.fill(keys, null);
+            Arrays.fill(counts, 0);
+        }
+        size = 0;
+    }
+
+    @Override
+    public void close() {
+        if (--depth > 0) return;
+        depth = 0;
+        reset();
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    private void grow() {
+        String[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new String[oldKeys.length << 1];
+        counts = new int[oldKeys.length << 1];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            String key = oldKeys[j];
+            if (key == null) continue;
+            int i = spread(key.hashCode()) & mask;
+            while (keys[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            counts[i] = oldCounts[j];
+        }
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,362 @@
+package com.berkayd06.query_logger.util;
+
+import com.berkayd06.query_logger.logging.QueryLogger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+public final class SqlFilter {
+
+    private static final int CONTAINS = 0;
+    private static final int PREFIX = 1;
+    private static final int WORD = 2;
+    private static final int REGEX_FLAGS = Pattern.CASE_INSENSITIVE | Pattern.DOTALL;
+
+    private static final int[] NO_OUTPUTS = new int[0];
+    private static final AtomicInteger IDS = new AtomicInteger();
+
+    private final char[][] keys;
+    private final int[][] next;
+    private final int[] fail;
+    private final int[][] outputs;
+    private final int[] patternLength;
+    private final int[] patternMode;
+    private final boolean[] patternInclude;
+    private final Pattern[] excludeRegex;
+    private final Pattern[] includeRegex;
+    final int id = IDS.incrementAndGet();
+    private final boolean hasIncludes;
+
+    private SqlFilter(Builder builder) {
+        int patterns = builder.literals.size();
+        patternLength = new int[patterns];
+        patternMode = new int[patterns];
+        patternInclude = new boolean[patterns];
+        List<char[]> nodeKeys = new ArrayList<>();
+        List<int[]> nodeNext = new ArrayList<>();
+        List<int[]> nodeOutputs = new ArrayList<>();
+        nodeKeys.add(new char[0]);
+        nodeNext.add(new int[0]);
+        nodeOutputs.add(NO_OUTPUTS);
+        for (int p = 0; p < patterns; p++) {
+            Literal literal = builder.literals.get(p);
+            patternLength[p] = literal.text.length();
+            patternMode[p] = literal.mode;
+            patternInclude[p] = literal.include;
+            int node = 0;
+            for (int i = 0; i < literal.text.length(); i++) {
+                char c = literal.text.charAt(i);
+                int child = find(nodeKeys.get(node), nodeNext.get(node), c);
+                if (child < 0) {
+                    child = nodeKeys.size();
+                    nodeKeys.add(new char[0]);
+                    nodeNext.add(new int[0]);
+                    nodeOutputs.add(NO_OUTPUTS);
+                    insert(nodeKeys, nodeNext, node, c, child);
+                }
+                node = child;
+            }
+            nodeOutputs.set(node, append(nodeOutputs.get(node), p));
+        }
+        int size = nodeKeys.size();
+        keys = nodeKeys.toArray(new char[size][]);
+        next = nodeNext.toArray(new int[size][]);
+        outputs = nodeOutputs.toArray(new int[size][]);
+        fail = new int[size];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : next[0]) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int k = 0; k < keys[node].length; k++) {
+                char c = keys[node][k];
+                int child = next[node][k];
+                int f = fail[node];
+                int target;
+                while ((target = find(keys[f], next[f], c)) < 0 && f != 0) {
+                    f = fail[f];
+                }
+                fail[child] = target >= 0 && target != child ? target : 0;
+                if (outputs[fail[child]].length > 0) {
+                    outputs[child] = merge(outputs[child], outputs[fail[child]]);
+                }
+                queue.add(child);
+            }
+        }
+        excludeRegex = combine(builder.excludeRegexes);
+        includeRegex = combine(builder.includeRegexes);
+        hasIncludes = builder.includeLiterals > 0 || includeRegex != null;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public boolean isExcluded(String sql) {
+        if (sql == null) {
+            return false;
+        }
+        boolean included = !hasIncludes;
+        if (keys.length > 1) {
+            int start = 0;
+            int length = sql.length();
+            while (start < length && Character.isWhitespace(sql.charAt(start))) {
+                start++;
+            }
+            int node = 0;
+            for (int i = start; i < length; i++) {
+                char c = lower(sql.charAt(i));
+                int target;
+                while ((target = find(keys[node], next[node], c)) < 0 && node != 0) {
+                    node = fail[node];
+                }
+                node = target >= 0 ? target : 0;
+                for (int p : outputs[node]) {
+                    if (!accepts(sql, p, i, start)) {
+                        continue;
+                    }
+                    if (!patternInclude[p]) {
+                        return true;
+                    }
+                    included = true;
+                }
+            }
+        }
+        if (excludeRegex != null && find(excludeRegex, sql)) {
+            return true;
+        }
+        if (!included && includeRegex != null && find(includeRegex, sql)) {
+            included = true;
+        }
+        return !included;
+    }
+
+    private static boolean find(Pattern[] patterns, String sql) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(sql).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean accepts(String sql, int pattern, int end, int firstChar) {
+        int start = end - patternLength[pattern] + 1;
+        switch (patternMode[pattern]) {
+            case PREFIX:
+                return start == firstChar;
+            case WORD:
+                return (start == 0 || !isIdentifierChar(sql.charAt(start - 1)))
+                    && (end + 1 >= sql.length() || !isIdentifierChar(sql.charAt(end + 1)));
+            default:
+                return true;
+        }
+    }
+
+    private static boolean isIdentifierChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static char lower(char c) {
+        if (c < 128) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+        }
+        return Character.toLowerCase(c);
+    }
+
+    private static int find(char[] keys, int[] next, char c) {
+        int index = Arrays.binarySearch(keys, c);
+        return index >= 0 ? next[index] : -1;
+    }
+
+    private static void insert(List<char[]> nodeKeys, List<int[]> nodeNext, int node, char c, int child) {
+        char[] oldKeys = nodeKeys.get(node);
+        int[] oldNext = nodeNext.get(node);
+        int at = -(Arrays.binarySearch(oldKeys, c) + 1);
+        char[] newKeys = new char[oldKeys.length + 1];
+        int[] newNext = new int[oldNext.length + 1];
+        System.arraycopy(oldKeys, 0, newKeys, 0, at);
+        System.arraycopy(oldNext, 0, newNext, 0, at);
+        newKeys[at] = c;
+        newNext[at] = child;
+        System.arraycopy(oldKeys, at, newKeys, at + 1, oldKeys.length - at);
+        System.arraycopy(oldNext, at, newNext, at + 1, oldNext.length - at);
+        nodeKeys.set(node, newKeys);
+        nodeNext.set(node, newNext);
+    }
+
+    private static int[] append(int[] values, int value) {
+        int[] result = Arrays.copyOf(values, values.length + 1);
+        result[values.length] = value;
+        return result;
+    }
+
+    private static int[] merge(int[] a, int[] b) {
+        int[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    private static Pattern[] combine(List<String> regexes) {
+        if (regexes.isEmpty()) {
+            return null;
+        }
+        if (regexes.size() == 1) {
+            return new Pattern[] {Pattern.compile(regexes.get(0), REGEX_FLAGS)};
+        }
+        boolean separate = false;
+        StringBuilder sb = new StringBuilder();
+        for (String regex : regexes) {
+            separate |= hasGroupReferences(regex);
+            if (sb.length() > 0) {
+                sb.append('|');
+            }
+            sb.append("(?:").append(regex).append(')');
+        }
+        if (!separate) {
+            try {
+                return new Pattern[] {Pattern.compile(sb.toString(), REGEX_FLAGS)};
+            } catch (PatternSyntaxException ignored) {
+            }
+        }
+        Pattern[] patterns = new Pattern[regexes.size()];
+        for (int i = 0; i < patterns.length; i++) {
+            patterns[i] = Pattern.compile(regexes.get(i), REGEX_FLAGS);
+        }
+        return patterns;
+    }
+
+    static boolean hasGroupReferences(String regex) {
+        int length = regex.length();
+        for (int i = 0; i < length; i++) {
+            char c = regex.charAt(i);
+            if (c == '\\' && i + 1 < length) {
+                char escaped = regex.charAt(++i);
+                if (escaped == 'Q') {
+                    int end = regex.indexOf("\\E", i + 1);
+                    if (end < 0) {
+                        return false;
+                    }
+                    i = end + 1;
+                } else if ((escaped >= '1' && escaped <= '9') || escaped == 'k') {
+                    return true;
+                }
+            } else if (c == '(' && regex.startsWith("?<", i + 1) && i + 3 < length
+                    && Character.isLetter(regex.charAt(i + 3))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Literal {
+        final String text;
+        final int mode;
+        final boolean include;
+
+        Literal(String text, int mode, boolean include) {
+            this.text = text;
+            this.mode = mode;
+            this.include = include;
+        }
+    }
+
+    public static final class Builder {
+        private final List<Literal> literals = new ArrayList<>();
+        private final List<String> excludeRegexes = new ArrayList<>();
+        private final List<String> includeRegexes = new ArrayList<>();
+        private int includeLiterals;
+        private QueryLogger logger;
+
+        private Builder() {}
+
+        public Builder logger(QueryLogger logger) {
+            this.logger = logger;
+            return this;
+        }
+
+        public Builder exclude(String rule) {
+            return add(rule, false);
+        }
+
+        public Builder include(String rule) {
+            return add(rule, true);
+        }
+
+        public Builder excludeRegex(String regex) {
+            return addRegex(regex, false);
+        }
+
+        public Builder includeRegex(String regex) {
+            return addRegex(regex, true);
+        }
+
+        private Builder add(String rule, boolean include) {
+            if (rule == null || rule.trim().isEmpty()) {
+                return this;
+            }
+            String trimmed = rule.trim();
+            int colon = trimmed.indexOf(':');
+            String type = colon > 0 ? trimmed.substring(0, colon).toLowerCase(Locale.ROOT) : "";
+            String value = colon > 0 ? trimmed.substring(colon + 1) : trimmed;
+            switch (type) {
+                case "regex":
+                    return addRegex(value, include);
+                case "prefix":
+                    return addLiteral(value.trim(), PREFIX, include);
+                case "table":
+                    return addLiteral(value.trim(), WORD, include);
+                case "contains":
+                    return addLiteral(value, CONTAINS, include);
+                default:
+                    return addLiteral(trimmed, CONTAINS, include);
+            }
+        }
+
+        private Builder addLiteral(String text, int mode, boolean include) {
+            if (text.isEmpty()) {
+                return this;
+            }
+            StringBuilder lowered = new StringBuilder(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                lowered.append(lower(text.charAt(i)));
+            }
+            literals.add(new Literal(lowered.toString(), mode, include));
+            if (include) {
+                includeLiterals++;
+            }
+            return this;
+        }
+
+        private Builder addRegex(String regex, boolean include) {
+            if (regex == null || regex.trim().isEmpty()) {
+                return this;
+            }
+            try {
+                Pattern.compile(regex.trim(), REGEX_FLAGS);
+            } catch (PatternSyntaxException e) {
+                if (logger != null) {
+                    logger.logWarning("Invalid regex pattern in SQL filter: " + regex);
+                }
+                return this;
+            }
+            (include ? includeRegexes : excludeRegexes).add(regex.trim());
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return literals.isEmpty() && excludeRegexes.isEmpty() && includeRegexes.isEmpty();
+        }
+
+        public SqlFilter build() {
+            return isEmpty() ? null : new SqlFilter(this);
+        }
+    }
+}
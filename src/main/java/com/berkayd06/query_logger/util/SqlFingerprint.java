@@ -0,0 +1,162 @@
+package com.berkayd06.query_logger.util;
+
+public final class SqlFingerprint {
+
+    private static final String IN_LIST = "?+)";
+
+    private SqlFingerprint() {
+    }
+
+    public static String of(String sql) {
+        if (sql == null || sql.isEmpty()) {
+            return "";
+        }
+        int length = sql.length();
+        StringBuilder sb = new StringBuilder(Math.min(length, 1024));
+        boolean pendingSpace = false;
+        int inListStart = -1;
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+                i++;
+                continue;
+            }
+            if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                i = skipLineComment(sql, i);
+                pendingSpace = true;
+                continue;
+            }
+            if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                i = skipBlockComment(sql, i);
+                pendingSpace = true;
+                continue;
+            }
+
+            if (c == ')' || c == ',') {
+                pendingSpace = false;
+            } else if (pendingSpace) {
+                int last = sb.length() - 1;
+                if (last >= 0 && sb.charAt(last) != '(') {
+                    sb.append(' ');
+                }
+                pendingSpace = false;
+            }
+
+            if (c == '\'') {
+                i = skipQuoted(sql, i, '\'');
+                sb.append('?');
+                continue;
+            }
+            if (c == '"' || c == '`') {
+                int end = skipQuoted(sql, i, c);
+                sb.append(sql, i, end);
+                i = end;
+                inListStart = -1;
+                continue;
+            }
+            if (isDigit(c) && !endsWithIdentifier(sb)) {
+                i = skipNumber(sql, i);
+                sb.append('?');
+                continue;
+            }
+
+            if (c == '(') {
+                if (endsWithIn(sb)) {
+                    if (sb.charAt(sb.length() - 1) != ' ') {
+                        sb.append(' ');
+                    }
+                    inListStart = sb.length();
+                } else {
+                    inListStart = -1;
+                }
+                sb.append('(');
+            } else if (c == ')') {
+                if (inListStart >= 0 && sb.length() > inListStart + 1) {
+                    sb.setLength(inListStart + 1);
+                    sb.append(IN_LIST);
+                } else {
+                    sb.append(')');
+                }
+                inListStart = -1;
+            } else if (c == ',') {
+                sb.append(',');
+                pendingSpace = true;
+            } else {
+                if (c != '?') {
+                    inListStart = -1;
+                }
+                sb.append(Character.toLowerCase(c));
+            }
+            i++;
+        }
+        return sb.toString();
+    }
+
+    private static int skipLineComment(String sql, int i) {
+        int end = sql.indexOf('\n', i + 2);
+        return end < 0 ? sql.length() : end + 1;
+    }
+
+    private static int skipBlockComment(String sql, int i) {
+        int end = sql.indexOf("*/", i + 2);
+        return end < 0 ? sql.length() : end + 2;
+    }
+
+    private static int skipQuoted(String sql, int i, char quote) {
+        int length = sql.length();
+        int j = i + 1;
+        while (j < length) {
+            if (sql.charAt(j) == quote) {
+                if (j + 1 < length && sql.charAt(j + 1) == quote) {
+                    j += 2;
+                    continue;
+                }
+                return j + 1;
+            }
+            j++;
+        }
+        return length;
+    }
+
+    private static int skipNumber(String sql, int i) {
+        int length = sql.length();
+        int j = i + 1;
+        while (j < length) {
+            char c = sql.charAt(j);
+            if (isDigit(c) || c == '.' || c == '_' || Character.isLetter(c)) {
+                j++;
+            } else if ((c == '+' || c == '-') && (sql.charAt(j - 1) == 'e' || sql.charAt(j - 1) == 'E')) {
+                j++;
+            } else {
+                break;
+            }
+        }
+        return j;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static boolean endsWithIdentifier(StringBuilder sb) {
+        int last = sb.length() - 1;
+        return last >= 0 && isIdentifierPart(sb.charAt(last));
+    }
+
+    private static boolean endsWithIn(StringBuilder sb) {
+        int end = sb.length();
+        if (end > 0 && sb.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return end >= 2
+            && sb.charAt(end - 2) == 'i' && sb.charAt(end - 1) == 'n'
+            && (end == 2 || !isIdentifierPart(sb.charAt(end - 3)));
+    }
+}
@@ -1,34 +1,59 @@
 package com.berkayd06.query_logger.util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 public final class SqlFormatter {
     private SqlFormatter() {}
     
-    private static final Pattern MULTI_WHITESPACE = Pattern.compile("\\s+");
-    private static final Pattern COMMA_WHITESPACE = Pattern.compile("\\s*,\\s*");
-    private static final Pattern PAREN_OPEN = Pattern.compile("\\s*\\(\\s*");
-    private static final Pattern PAREN_CLOSE = Pattern.compile("\\s*\\)\\s*");
-    private static final Pattern EQUALS_WHITESPACE = Pattern.compile("\\s*=\\s*");
-    private static final Pattern SEMICOLON_WHITESPACE = Pattern.compile("\\s*;\\s*");
-    
-    private static final Pattern SELECT_PATTERN = Pattern.compile("\\s+(SELECT)\\s+", Pattern.CASE_INSENSITIVE);
-    private static final Pattern FROM_PATTERN = Pattern.compile("\\s+(FROM)\\s+", Pattern.CASE_INSENSITIVE);
-    private static final Pattern WHERE_PATTERN = Pattern.compile("\\s+(WHERE)\\s+", Pattern.CASE_INSENSITIVE);
-    private static final Pattern JOIN_PATTERN = Pattern.compile("\\s+(JOIN|INNER JOIN|LEFT JOIN|RIGHT JOIN|OUTER JOIN)\\s+", Pattern.CASE_INSENSITIVE);
-    private static final Pattern GROUP_BY_PATTERN = Pattern.compile("\\s+(GROUP BY)\\s+", Pattern.CASE_INSENSITIVE);
-    private static final Pattern ORDER_BY_PATTERN = Pattern.compile("\\s+(ORDER BY)\\s+", Pattern.CASE_INSENSITIVE);
-    private static final Pattern HAVING_PATTERN = Pattern.compile("\\s+(HAVING)\\s+", Pattern.CASE_INSENSITIVE);
-    private static final Pattern UNION_PATTERN = Pattern.compile("\\s+(UNION|UNION ALL)\\s+", Pattern.CASE_INSENSITIVE);
-    private static final Pattern INSERT_PATTERN = Pattern.compile("\\s+(INSERT INTO)\\s+", Pattern.CASE_INSENSITIVE);
-    private static final Pattern UPDATE_PATTERN = Pattern.compile("\\s+(UPDATE)\\s+", Pattern.CASE_INSENSITIVE);
-    private static final Pattern DELETE_PATTERN = Pattern.compile("\\s+(DELETE FROM)\\s+", Pattern.CASE_INSENSITIVE);
-    private static final Pattern AND_OR_PATTERN = Pattern.compile("\\s+(AND|OR)\\s+", Pattern.CASE_INSENSITIVE);
-    private static final Pattern MULTI_NEWLINE = Pattern.compile("\n+");
+    private static final byte GAP_NONE = 0;
+    private static final byte GAP_SPACE = 1;
+    private static final byte GAP_TWO_SPACES = 2;
+    private static final byte GAP_NEWLINE = 3;
+    private static final byte GAP_NEWLINE_INDENT = 4;
+
+    private static final String PUNCTUATION = ",()=;";
+    private static final byte[] GAP_BEFORE_PUNCTUATION = {GAP_NONE, GAP_SPACE, GAP_NONE, GAP_SPACE, GAP_NONE};
+    private static final byte[] GAP_AFTER_PUNCTUATION = {GAP_SPACE, GAP_NONE, GAP_SPACE, GAP_SPACE, GAP_NONE};
+    private static final byte[] GAP_BETWEEN_PUNCTUATION = {GAP_SPACE, GAP_SPACE, GAP_SPACE, GAP_TWO_SPACES, GAP_NONE};
+
+    private static final String[] KEYWORDS = {
+        "SELECT", "FROM", "WHERE", "JOIN",
+        "INNER", "LEFT", "RIGHT", "OUTER",
+        "ON", "GROUP", "BY", "ORDER",
+        "HAVING", "INSERT", "INTO", "VALUES",
+        "UPDATE", "SET", "DELETE", "CREATE",
+        "ALTER", "DROP", "INDEX", "TABLE",
+        "DATABASE", "AND", "OR", "NOT",
+        "IN", "LIKE", "BETWEEN", "IS",
+        "NULL", "AS", "ASC", "DESC",
+        "LIMIT", "OFFSET", "UNION", "ALL",
+        "COUNT", "SUM", "AVG", "MAX",
+        "MIN", "DISTINCT", "CASE", "WHEN",
+        "THEN", "ELSE", "END"
+    };
+    private static final String[][] KEYWORDS_BY_LENGTH = groupByLength(KEYWORDS);
+
+    private static final String[][][] CLAUSE_KEYWORDS = {
+        {{"SELECT"}},
+        {{"FROM"}},
+        {{"WHERE"}},
+        {{"JOIN"}, {"INNER", "JOIN"}, {"LEFT", "JOIN"}, {"RIGHT", "JOIN"}, {"OUTER", "JOIN"}},
+        {{"GROUP", "BY"}},
+        {{"ORDER", "BY"}},
+        {{"HAVING"}},
+        {{"UNION"}, {"UNION", "ALL"}},
+        {{"INSERT", "INTO"}},
+        {{"UPDATE"}},
+        {{"DELETE", "FROM"}}
+    };
+    private static final String[][] CONDITION_KEYWORDS = {{"AND"}, {"OR"}};
+    private static final Set<String> LINE_BREAK_STARTS = firstWords(CLAUSE_KEYWORDS, CONDITION_KEYWORDS);
 
     public static String format(String sql) {
         if (sql == null || sql.isEmpty()) {
@@ -40,81 +65,285 @@ public final class SqlFormatter {
             return trimmed;
         }
 
-        int len = trimmed.length();
-        StringBuilder sb = new StringBuilder(len + 50);
+        Tokens tokens = tokenize(trimmed);
+        if (tokens.keywordCount > 0) {
+            for (String[][] clause : CLAUSE_KEYWORDS) {
+                applyLineBreaks(tokens, clause, GAP_NEWLINE);
+            }
+            applyLineBreaks(tokens, CONDITION_KEYWORDS, GAP_NEWLINE_INDENT);
+        }
+
+        return tokens.render();
+    }
+
+    private static final class Tokens {
+        final StringBuilder text;
+        int[] start = new int[32];
+        int[] end = new int[32];
+        char[] punctuation = new char[32];
+        byte[] gap = new byte[33];
+        int count;
+        int[] keywords = new int[8];
+        int keywordCount;
+
+        Tokens(int capacity) {
+            this.text = new StringBuilder(capacity);
+        }
+
+        void add(int tokenStart, int tokenEnd, char punct, boolean spaceBefore) {
+            if (count == start.length) {
+                int size = count * 2;
+                start = Arrays.copyOf(start, size);
+                end = Arrays.copyOf(end, size);
+                punctuation = Arrays.copyOf(punctuation, size);
+                gap = Arrays.copyOf(gap, size + 1);
+            }
+            start[count] = tokenStart;
+            end[count] = tokenEnd;
+            punctuation[count] = punct;
+            gap[count] = spaceBefore ? GAP_SPACE : GAP_NONE;
+            spacePunctuation(count, count);
+            count++;
+            gap[count] = GAP_NONE;
+        }
+
+        void addKeyword(int index) {
+            if (keywordCount == keywords.length) {
+                keywords = Arrays.copyOf(keywords, keywordCount * 2);
+            }
+            keywords[keywordCount++] = index;
+        }
+
+        void spacePunctuation(int i, int last) {
+            int before = i > 0 ? PUNCTUATION.indexOf(punctuation[i - 1]) : -1;
+            int after = i <= last ? PUNCTUATION.indexOf(punctuation[i]) : -1;
+            if (before < 0 && after < 0) {
+                return;
+            }
+            if (before == after) {
+                gap[i] = GAP_BETWEEN_PUNCTUATION[before];
+            } else if (before > after) {
+                gap[i] = GAP_AFTER_PUNCTUATION[before];
+            } else {
+                gap[i] = GAP_BEFORE_PUNCTUATION[after];
+            }
+        }
+
+        boolean wordEquals(int index, String word) {
+            int length = end[index] - start[index];
+            if (punctuation[index] != 0 || length != word.length()) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (Character.toUpperCase(text.charAt(start[index] + i)) != word.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        String render() {
+            StringBuilder sb = new StringBuilder(text.length() + count + 32);
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    appendGap(sb, gap[i]);
+                }
+                sb.append(text, start[i], end[i]);
+            }
+            return sb.toString().trim();
+        }
+    }
+
+    private static Tokens tokenize(String sql) {
+        int len = sql.length();
+        Tokens tokens = new Tokens(len);
+        StringBuilder text = tokens.text;
+        boolean spaceBefore = false;
         int pos = 0;
-        
+
         while (pos < len) {
-            char c = trimmed.charAt(pos);
-            
-            if (Character.isLetter(c)) {
-                int wordStart = pos;
-                int wordEnd = pos;
-                while (wordEnd < len && Character.isLetterOrDigit(trimmed.charAt(wordEnd))) {
-                    wordEnd++;
+            char c = sql.charAt(pos);
+            if (isSqlWhitespace(c)) {
+                spaceBefore = true;
+                pos++;
+                continue;
+            }
+            if (PUNCTUATION.indexOf(c) >= 0) {
+                int at = text.length();
+                text.append(c);
+                tokens.add(at, at + 1, c, spaceBefore);
+                spaceBefore = false;
+                pos++;
+                continue;
+            }
+
+            int tokenStart = text.length();
+            String keyword = null;
+            int segments = 0;
+            while (pos < len) {
+                c = sql.charAt(pos);
+                if (isSqlWhitespace(c) || PUNCTUATION.indexOf(c) >= 0) {
+                    break;
                 }
-                
-                String word = trimmed.substring(wordStart, wordEnd);
-                String upperWord = word.toUpperCase();
-                if (isKeyword(upperWord)) {
-                    sb.append(upperWord);
+                if (c == '\'' || c == '"' || c == '`') {
+                    pos = copyQuoted(sql, pos, c, text);
+                } else if (c == '/' && pos + 1 < len && sql.charAt(pos + 1) == '*') {
+                    int close = sql.indexOf("*/", pos + 2);
+                    int stop = close < 0 ? len : close + 2;
+                    text.append(sql, pos, stop);
+                    pos = stop;
+                } else if (c == '-' && pos + 1 < len && sql.charAt(pos + 1) == '-') {
+                    int stop = pos + 2;
+                    while (stop < len && sql.charAt(stop) != '\n' && sql.charAt(stop) != '\r') {
+                        stop++;
+                    }
+                    text.append(sql, pos, stop);
+                    pos = stop;
+                } else if (Character.isLetter(c)) {
+                    int wordEnd = pos + 1;
+                    while (wordEnd < len && Character.isLetterOrDigit(sql.charAt(wordEnd))) {
+                        wordEnd++;
+                    }
+                    keyword = appendWord(sql, pos, wordEnd, text);
+                    pos = wordEnd;
                 } else {
-                    sb.append(word);
+                    text.append(c);
+                    pos++;
                 }
-                
-                pos = wordEnd;
-            } else {
-                sb.append(c);
-                pos++;
+                segments++;
+            }
+            if (segments == 1 && keyword != null && LINE_BREAK_STARTS.contains(keyword)) {
+                tokens.addKeyword(tokens.count);
             }
+            tokens.add(tokenStart, text.length(), (char) 0, spaceBefore);
+            spaceBefore = false;
         }
-        
-        String formatted = sb.toString();
-
-        formatted = MULTI_WHITESPACE.matcher(formatted).replaceAll(" ");
-        formatted = COMMA_WHITESPACE.matcher(formatted).replaceAll(", ");
-        formatted = PAREN_OPEN.matcher(formatted).replaceAll(" (");
-        formatted = PAREN_CLOSE.matcher(formatted).replaceAll(") ");
-        formatted = EQUALS_WHITESPACE.matcher(formatted).replaceAll(" = ");
-        formatted = SEMICOLON_WHITESPACE.matcher(formatted).replaceAll(";");
-
-        formatted = SELECT_PATTERN.matcher(formatted).replaceAll("\n$1 ");
-        formatted = FROM_PATTERN.matcher(formatted).replaceAll("\n$1 ");
-        formatted = WHERE_PATTERN.matcher(formatted).replaceAll("\n$1 ");
-        formatted = JOIN_PATTERN.matcher(formatted).replaceAll("\n$1 ");
-        formatted = GROUP_BY_PATTERN.matcher(formatted).replaceAll("\n$1 ");
-        formatted = ORDER_BY_PATTERN.matcher(formatted).replaceAll("\n$1 ");
-        formatted = HAVING_PATTERN.matcher(formatted).replaceAll("\n$1 ");
-        formatted = UNION_PATTERN.matcher(formatted).replaceAll("\n$1 ");
-        formatted = INSERT_PATTERN.matcher(formatted).replaceAll("\n$1 ");
-        formatted = UPDATE_PATTERN.matcher(formatted).replaceAll("\n$1 ");
-        formatted = DELETE_PATTERN.matcher(formatted).replaceAll("\n$1 ");
-        formatted = AND_OR_PATTERN.matcher(formatted).replaceAll("\n  $1 ");
-        
-        formatted = MULTI_NEWLINE.matcher(formatted).replaceAll("\n");
-        
-        return formatted.trim();
+        tokens.spacePunctuation(tokens.count, tokens.count - 1);
+        return tokens;
+    }
+
+    private static int copyQuoted(String sql, int pos, char quote, StringBuilder text) {
+        int len = sql.length();
+        int i = pos + 1;
+        while (i < len) {
+            if (sql.charAt(i) == quote) {
+                if (i + 1 < len && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                i++;
+                break;
+            }
+            i++;
+        }
+        text.append(sql, pos, i);
+        return i;
+    }
+
+    private static String appendWord(String sql, int wordStart, int wordEnd, StringBuilder text) {
+        int length = wordEnd - wordStart;
+        if (length < KEYWORDS_BY_LENGTH.length) {
+            for (String keyword : KEYWORDS_BY_LENGTH[length]) {
+                if (sql.regionMatches(true, wordStart, keyword, 0, length)) {
+                    text.append(keyword);
+                    return keyword;
+                }
+            }
+        }
+        text.append(sql, wordStart, wordEnd);
+        return null;
+    }
+
+    private static void applyLineBreaks(Tokens tokens, String[][] keywords, byte lineBreak) {
+        int matchedUpTo = -1;
+        for (int k = 0; k < tokens.keywordCount; k++) {
+            int i = tokens.keywords[k];
+            if (i <= matchedUpTo) {
+                continue;
+            }
+            int matchEnd = matchKeyword(tokens, i, keywords);
+            if (matchEnd > 0) {
+                tokens.gap[i] = lineBreak;
+                tokens.gap[matchEnd] = GAP_SPACE;
+                matchedUpTo = matchEnd;
+            }
+        }
+    }
+
+    private static int matchKeyword(Tokens tokens, int index, String[][] keywords) {
+        if (tokens.gap[index] == GAP_NONE) {
+            return -1;
+        }
+        for (String[] words : keywords) {
+            int last = index + words.length;
+            if (last > tokens.count || tokens.gap[last] == GAP_NONE) {
+                continue;
+            }
+            boolean matched = true;
+            for (int k = 0; k < words.length && matched; k++) {
+                matched = (k == 0 || tokens.gap[index + k] == GAP_SPACE)
+                    && tokens.wordEquals(index + k, words[k]);
+            }
+            if (matched) {
+                return last;
+            }
+        }
+        return -1;
     }
 
-    private static boolean isKeyword(String word) {
-        switch (word) {
-            case "SELECT": case "FROM": case "WHERE": case "JOIN":
-            case "INNER": case "LEFT": case "RIGHT": case "OUTER":
-            case "ON": case "GROUP": case "BY": case "ORDER":
-            case "HAVING": case "INSERT": case "INTO": case "VALUES":
-            case "UPDATE": case "SET": case "DELETE": case "CREATE":
-            case "ALTER": case "DROP": case "INDEX": case "TABLE":
-            case "DATABASE": case "AND": case "OR": case "NOT":
-            case "IN": case "LIKE": case "BETWEEN": case "IS":
-            case "NULL": case "AS": case "ASC": case "DESC":
-            case "LIMIT": case "OFFSET": case "UNION": case "ALL":
-            case "COUNT": case "SUM": case "AVG": case "MAX":
-            case "MIN": case "DISTINCT": case "CASE": case "WHEN":
-            case "THEN": case "ELSE": case "END":
-                return true;
+    private static void appendGap(StringBuilder sb, byte gap) {
+        switch (gap) {
+            case GAP_SPACE:
+                sb.append(' ');
+                break;
+            case GAP_TWO_SPACES:
+                sb.append("  ");
+                break;
+            case GAP_NEWLINE:
+                sb.append('\n');
+                break;
+            case GAP_NEWLINE_INDENT:
+                sb.append("\n  ");
+                break;
             default:
-                return false;
+                break;
+        }
+    }
+
+    private static String[][] groupByLength(String[] words) {
+        int maxLength = 0;
+        for (String word : words) {
+            maxLength = Math.max(maxLength, word.length());
         }
+        List<List<String>> groups = new ArrayList<>(maxLength + 1);
+        for (int i = 0; i <= maxLength; i++) {
+            groups.add(new ArrayList<>());
+        }
+        for (String word : words) {
+            groups.get(word.length()).add(word);
+        }
+        String[][] result = new String[maxLength + 1][];
+        for (int i = 0; i <= maxLength; i++) {
+            result[i] = groups.get(i).toArray(new String[0]);
+        }
+        return result;
+    }
+
+    private static Set<String> firstWords(String[][][] clauses, String[][] conditions) {
+        Set<String> words = new HashSet<>();
+        for (String[][] clause : clauses) {
+            for (String[] alternative : clause) {
+                words.add(alternative[0]);
+            }
+        }
+        for (String[] alternative : conditions) {
+            words.add(alternative[0]);
+        }
+        return words;
+    }
+
+    private static boolean isSqlWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
     }
 
     public static String bindParameters(String sql, Map<Integer, Object> params) {
@@ -234,7 +463,7 @@ public final class SqlFormatter {
         }
     }
 
-    private static String sanitize(String sql) {
+    public static String sanitize(String sql) {
         if (sql == null || sql.isEmpty()) {
             return "";
         }
@@ -0,0 +1,30 @@
+package com.berkayd06.query_logger.web;
+
+import com.berkayd06.query_logger.util.QueryScope;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+public class QueryScopeFilter implements Filter {
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        try (QueryScope ignored = QueryScope.open(scopeName(request))) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    private static String scopeName(ServletRequest request) {
+        if (request instanceof HttpServletRequest) {
+            HttpServletRequest http = (HttpServletRequest) request;
+            return http.getMethod() + " " + http.getRequestURI();
+        }
+        return "request";
+    }
+}
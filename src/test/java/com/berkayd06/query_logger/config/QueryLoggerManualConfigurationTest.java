@@ -0,0 +1,67 @@
+package com.berkayd06.query_logger.config;
+
+import com.berkayd06.query_logger.core.QueryLoggingDataSource;
+import org.junit.Test;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class QueryLoggerManualConfigurationTest {
+
+    @Test
+    public void manualExampleLogsEachQueryOnce() throws SQLException {
+        PrintStream original = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured, true));
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ManualExample.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .properties("querylogger.manual-config-example=true",
+                    "querylogger.only-slow=false",
+                    "querylogger.log-threshold-ms=0",
+                    "spring.datasource.jdbc-url=jdbc:h2:mem:manual-config")
+                .run()) {
+            DataSource dataSource = context.getBean(DataSource.class);
+            assertTrue(dataSource instanceof QueryLoggingDataSource);
+            assertSame(dataSource, context.getBean("actualDataSource"));
+
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                for (int i = 0; i < 3; i++) {
+                    statement.execute("select " + i);
+                }
+            }
+        } finally {
+            System.setOut(original);
+        }
+
+        int logged = 0;
+        for (String line : captured.toString().split("\\R")) {
+            if (line.contains("event=sql_query")) {
+                logged++;
+            }
+        }
+        assertEquals(3, logged);
+    }
+
+    @Configuration
+    @Import(QueryLoggerManualConfiguration.class)
+    @ImportAutoConfiguration(QueryLoggerAutoConfiguration.class)
+    static class ManualExample {
+    }
+}
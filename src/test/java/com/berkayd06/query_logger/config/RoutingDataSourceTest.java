@@ -0,0 +1,89 @@
+package com.berkayd06.query_logger.config;
+
+import com.berkayd06.query_logger.actuate.QueryLoggerEndpoint;
+import com.berkayd06.query_logger.core.QueryLoggingDataSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class RoutingDataSourceTest {
+
+    private QueryLoggerPropertiesResolver resolver;
+    private QueryLoggingDataSource primary;
+    private QueryLoggingDataSource secondary;
+    private final Map<String, DataSource> beans = new LinkedHashMap<>();
+
+    @Before
+    public void setUp() {
+        Map<String, Object> source = new HashMap<>();
+        source.put("querylogger.datasources.primary.log-threshold-ms", "5");
+        source.put("querylogger.datasources.secondary.log-threshold-ms", "7");
+        Binder binder = new Binder(new MapConfigurationPropertySource(source));
+        QueryLoggerProperties props = new QueryLoggerProperties();
+        binder.bind("querylogger", Bindable.ofInstance(props));
+        resolver = new QueryLoggerPropertiesResolver(props, binder);
+
+        QueryLoggerAutoConfiguration.QueryLoggingDataSourcePostProcessor processor =
+            new QueryLoggerAutoConfiguration.QueryLoggingDataSourcePostProcessor(props, binder);
+        primary = (QueryLoggingDataSource) processor.postProcessAfterInitialization(mock(DataSource.class), "primary");
+        secondary = (QueryLoggingDataSource) processor.postProcessAfterInitialization(mock(DataSource.class),
+            "secondary");
+
+        AbstractRoutingDataSource routing = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return null;
+            }
+        };
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put("primary", primary);
+        targets.put("secondary", secondary);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        assertSame(routing, processor.postProcessAfterInitialization(routing, "routing"));
+
+        beans.put("primary", primary);
+        beans.put("secondary", secondary);
+        beans.put("routing", routing);
+    }
+
+    @Test
+    public void refreshKeepsPerBeanOverridesBehindARouter() {
+        assertEquals(5L, primary.getSettings().toMap().get("logThresholdMs"));
+
+        new QueryLoggerRefreshListener(beans, resolver).refresh();
+
+        assertEquals(5L, primary.getSettings().toMap().get("logThresholdMs"));
+        assertEquals(7L, secondary.getSettings().toMap().get("logThresholdMs"));
+    }
+
+    @Test
+    public void endpointListsEachWrapperOnceUnderItsOwnName() {
+        QueryLoggerEndpoint endpoint = new QueryLoggerEndpoint(beans, resolver);
+        assertEquals(Arrays.asList("primary", "secondary"), Arrays.asList(endpoint.report().keySet().toArray()));
+
+        Map<String, Object> changed = endpoint.configure(null, null, null, null, null, 0.5, null, null, null);
+        assertEquals(Arrays.asList("primary", "secondary"), Arrays.asList(changed.keySet().toArray()));
+        assertEquals(5L, primary.getSettings().toMap().get("logThresholdMs"));
+        assertEquals(0.5, primary.getSettings().toMap().get("sampleRate"));
+
+        endpoint.revert(null);
+        assertTrue(primary.getSettings() == primary.getBaselineSettings());
+        assertEquals(5L, primary.getSettings().toMap().get("logThresholdMs"));
+    }
+}
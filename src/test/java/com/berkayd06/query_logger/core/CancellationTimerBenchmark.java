@@ -0,0 +1,121 @@
+package com.berkayd06.query_logger.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CancellationTimerBenchmark {
+
+    private static final long CANCEL_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final Runnable NOOP = () -> {
+    };
+
+    private static final class NoopTimeout extends CancellationTimer.Timeout {
+        @Override
+        protected void expire() {
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        @Param({"0", "1000", "100000"})
+        public int live;
+
+        CancellationTimer timer;
+        ScheduledExecutorService executor;
+        NoopTimeout[] leases;
+
+        @Setup
+        public void setUp() {
+            timer = new CancellationTimer();
+            executor = Executors.newSingleThreadScheduledExecutor();
+            leases = arm(timer, live);
+        }
+
+        @TearDown
+        public void tearDown() {
+            for (NoopTimeout lease : leases) {
+                timer.disarm(lease);
+            }
+            executor.shutdownNow();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Caller {
+        final NoopTimeout timeout = new NoopTimeout();
+    }
+
+    @State(Scope.Thread)
+    public static class Synchronous {
+        @Param({"0", "1000", "100000"})
+        public int live;
+
+        CancellationTimer timer;
+        NoopTimeout timeout;
+        long now;
+
+        @Setup
+        public void setUp() {
+            timer = new CancellationTimer(false);
+            arm(timer, live);
+            timeout = new NoopTimeout();
+            now = System.nanoTime();
+            timer.advance(now);
+        }
+    }
+
+    @Benchmark
+    public boolean armDisarm(Shared shared, Caller caller) {
+        shared.timer.arm(caller.timeout, CANCEL_NANOS);
+        return shared.timer.disarm(caller.timeout);
+    }
+
+    @Benchmark
+    public boolean scheduleCancel(Shared shared) {
+        return shared.executor.schedule(NOOP, CANCEL_NANOS, TimeUnit.NANOSECONDS).cancel(false);
+    }
+
+    @Benchmark
+    public long timerInsertRemove(Synchronous state) {
+        state.timer.arm(state.timeout, CANCEL_NANOS);
+        state.timer.advance(state.now);
+        state.timer.disarm(state.timeout);
+        return state.timer.advance(state.now);
+    }
+
+    @Benchmark
+    public long timerRearmLater(Synchronous state) {
+        state.timer.arm(state.timeout, CANCEL_NANOS);
+        return state.timer.advance(state.now);
+    }
+
+    private static NoopTimeout[] arm(CancellationTimer timer, int count) {
+        Random random = new Random(42);
+        NoopTimeout[] timeouts = new NoopTimeout[count];
+        for (int i = 0; i < count; i++) {
+            timeouts[i] = new NoopTimeout();
+            timer.arm(timeouts[i], TimeUnit.SECONDS.toNanos(30 + random.nextInt(60)));
+        }
+        return timeouts;
+    }
+}
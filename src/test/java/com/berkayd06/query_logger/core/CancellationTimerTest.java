@@ -0,0 +1,117 @@
+package com.berkayd06.query_logger.core;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CancellationTimerTest {
+
+    private static final class RecordingTimeout extends CancellationTimer.Timeout {
+        final CountDownLatch fired = new CountDownLatch(1);
+        final AtomicInteger count = new AtomicInteger();
+        volatile long firedAtNanos;
+        volatile long threadId;
+
+        @Override
+        protected void expire() {
+            firedAtNanos = System.nanoTime();
+            threadId = Thread.currentThread().getId();
+            count.incrementAndGet();
+            fired.countDown();
+        }
+    }
+
+    private final CancellationTimer timer = new CancellationTimer();
+
+    @Test
+    public void firesOnceAfterTheDeadline() throws InterruptedException {
+        RecordingTimeout timeout = new RecordingTimeout();
+        long armedAt = System.nanoTime();
+        timer.arm(timeout, TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertTrue(timeout.fired.await(5, TimeUnit.SECONDS));
+        assertTrue(timeout.firedAtNanos - armedAt >= TimeUnit.MILLISECONDS.toNanos(20));
+        Thread.sleep(50);
+        assertEquals(1, timeout.count.get());
+        assertFalse(timer.disarm(timeout));
+    }
+
+    @Test
+    public void disarmedTimeoutsNeverFire() throws InterruptedException {
+        RecordingTimeout timeout = new RecordingTimeout();
+        timer.arm(timeout, TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertTrue(timer.disarm(timeout));
+        assertFalse(timeout.fired.await(100, TimeUnit.MILLISECONDS));
+        assertFalse(timer.disarm(timeout));
+    }
+
+    @Test
+    public void rearmingWithAShorterDeadlineFiresOnTime() throws InterruptedException {
+        RecordingTimeout timeout = new RecordingTimeout();
+        timer.arm(timeout, TimeUnit.SECONDS.toNanos(30));
+        Thread.sleep(20);
+        long armedAt = System.nanoTime();
+        timer.arm(timeout, TimeUnit.MILLISECONDS.toNanos(30));
+
+        assertTrue(timeout.fired.await(5, TimeUnit.SECONDS));
+        assertTrue(timeout.firedAtNanos - armedAt < TimeUnit.SECONDS.toNanos(2));
+        assertEquals(1, timeout.count.get());
+    }
+
+    @Test
+    public void rearmingWithALongerDeadlineDefersExpiry() throws InterruptedException {
+        RecordingTimeout timeout = new RecordingTimeout();
+        timer.arm(timeout, TimeUnit.MILLISECONDS.toNanos(30));
+        long armedAt = System.nanoTime();
+        timer.arm(timeout, TimeUnit.MILLISECONDS.toNanos(200));
+
+        assertTrue(timeout.fired.await(5, TimeUnit.SECONDS));
+        assertTrue(timeout.firedAtNanos - armedAt >= TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals(1, timeout.count.get());
+    }
+
+    @Test
+    public void removesDisarmedEntriesFromTheQueue() throws InterruptedException {
+        for (int i = 0; i < 10_000; i++) {
+            RecordingTimeout timeout = new RecordingTimeout();
+            timer.arm(timeout, TimeUnit.SECONDS.toNanos(60));
+            timer.disarm(timeout);
+        }
+        RecordingTimeout marker = new RecordingTimeout();
+        timer.arm(marker, TimeUnit.MILLISECONDS.toNanos(10));
+        assertTrue(marker.fired.await(5, TimeUnit.SECONDS));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (timer.size() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, timer.size());
+    }
+
+    @Test
+    public void parksWhileOnlyLongTimeoutsAreArmed() throws InterruptedException {
+        RecordingTimeout probe = new RecordingTimeout();
+        timer.arm(probe, 0L);
+        assertTrue(probe.fired.await(5, TimeUnit.SECONDS));
+        long timerThread = probe.threadId;
+        RecordingTimeout lease = new RecordingTimeout();
+        timer.arm(lease, TimeUnit.MINUTES.toNanos(5));
+        Thread.sleep(50);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long before = threads.getThreadCpuTime(timerThread);
+        Thread.sleep(1_000);
+        long used = threads.getThreadCpuTime(timerThread) - before;
+
+        assertTrue("timer thread used " + used + " ns", used < TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(timer.disarm(lease));
+    }
+}
@@ -0,0 +1,140 @@
+package com.berkayd06.query_logger.core;
+
+import com.berkayd06.query_logger.config.QueryLoggerProperties;
+import com.berkayd06.query_logger.logging.FastQueryLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.DataSource;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WrapModeBenchmark {
+
+    @Param({"RAW", "DELEGATE", "PROXY"})
+    public String mode;
+
+    private DataSource dataSource;
+    private Connection connection;
+    private PreparedStatement prepared;
+    private Statement statement;
+    private long id;
+
+    @Setup
+    public void setUp() throws SQLException {
+        if ("RAW".equals(mode)) {
+            dataSource = Driver.DATA_SOURCE;
+        } else {
+            QueryLoggerProperties props = new QueryLoggerProperties();
+            props.setWrapMode(QueryLoggerProperties.WrapMode.valueOf(mode));
+            PrintStream discard = new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+            });
+            dataSource = new QueryLoggingDataSource(Driver.DATA_SOURCE, props,
+                new QueryLoggerRuntime(new FastQueryLogger(discard, discard)));
+        }
+        connection = dataSource.getConnection();
+        prepared = connection.prepareStatement("update users set name = ? where id = ?");
+        statement = connection.createStatement();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        statement.close();
+        prepared.close();
+        connection.close();
+    }
+
+    @Benchmark
+    public int preparedUpdate() throws SQLException {
+        prepared.setString(1, "alice");
+        prepared.setLong(2, ++id);
+        return prepared.executeUpdate();
+    }
+
+    @Benchmark
+    public boolean statementQuery() throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery("select id from users")) {
+            return resultSet.next();
+        }
+    }
+
+    @Benchmark
+    public int connectionCycle() throws SQLException {
+        try (Connection c = dataSource.getConnection();
+             PreparedStatement ps = c.prepareStatement("select 1")) {
+            return ps.executeUpdate();
+        }
+    }
+
+    private static final class Driver {
+        static final InvocationHandler HANDLER = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getConnection":
+                    return Driver.CONNECTION;
+                case "createStatement":
+                case "prepareStatement":
+                case "prepareCall":
+                    return Driver.STATEMENT;
+                case "executeQuery":
+                    return Driver.RESULT_SET;
+                case "getMetaData":
+                    return Driver.META_DATA;
+                case "getDatabaseProductName":
+                    return "H2";
+                case "executeUpdate":
+                    return 1;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "stub";
+                default:
+                    Class<?> type = method.getReturnType();
+                    if (type == boolean.class) return false;
+                    if (type == int.class) return 0;
+                    if (type == long.class) return 0L;
+                    return null;
+            }
+        };
+        static final DataSource DATA_SOURCE = stub(DataSource.class);
+        static final Connection CONNECTION = stub(Connection.class);
+        static final CallableStatement STATEMENT = stub(CallableStatement.class);
+        static final ResultSet RESULT_SET = stub(ResultSet.class);
+        static final DatabaseMetaData META_DATA = stub(DatabaseMetaData.class);
+
+        private static <T> T stub(Class<T> type) {
+            return type.cast(Proxy.newProxyInstance(WrapModeBenchmark.class.getClassLoader(),
+                new Class<?>[] {type}, HANDLER));
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.berkayd06.query_logger.core;
+
+import com.berkayd06.query_logger.config.QueryLoggerProperties;
+import com.berkayd06.query_logger.logging.QueryEvent;
+import com.berkayd06.query_logger.logging.QueryLogger;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WrapModeEquivalenceTest {
+
+    @Test
+    public void delegateAndProxyModesLogTheSameEvents() throws SQLException {
+        Run delegate = run(QueryLoggerProperties.WrapMode.DELEGATE);
+        Run proxy = run(QueryLoggerProperties.WrapMode.PROXY);
+
+        assertFalse(Proxy.isProxyClass(delegate.connectionClass));
+        assertTrue(Proxy.isProxyClass(proxy.connectionClass));
+        assertFalse(delegate.events.isEmpty());
+        assertEquals(delegate.events, proxy.events);
+    }
+
+    @Test
+    public void bothModesForwardCallsToTheDriver() throws SQLException {
+        for (QueryLoggerProperties.WrapMode mode : QueryLoggerProperties.WrapMode.values()) {
+            Run run = run(mode);
+            verify(run.statement).execute("select 1");
+            verify(run.prepared, times(2)).executeUpdate();
+            verify(run.prepared, times(2)).addBatch();
+            verify(run.prepared).executeBatch();
+            verify(run.callable).execute();
+            verify(run.connection).close();
+        }
+    }
+
+    @Test
+    public void failedCommitEndsTheTransactionInBothModes() throws SQLException {
+        List<String> delegate = failCommit(QueryLoggerProperties.WrapMode.DELEGATE);
+        List<String> proxy = failCommit(QueryLoggerProperties.WrapMode.PROXY);
+
+        assertEquals(Arrays.asList(
+            "transaction outcome=commit statements=2",
+            "transaction outcome=rollback statements=1"), delegate);
+        assertEquals(delegate, proxy);
+    }
+
+    private static List<String> failCommit(QueryLoggerProperties.WrapMode mode) throws SQLException {
+        Run run = new Run();
+        DataSource target = mock(DataSource.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(target.getConnection()).thenReturn(run.connection);
+        when(run.connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn("H2");
+        when(run.connection.createStatement()).thenReturn(run.statement);
+        doThrow(new SQLException("connection reset", "08006")).when(run.connection).commit();
+
+        QueryLoggerProperties props = new QueryLoggerProperties();
+        props.setWrapMode(mode);
+        props.setLogQueries(false);
+        props.getTransactions().setEnabled(true);
+        props.getTransactions().setThresholdMs(0);
+        QueryLoggingDataSource dataSource = new QueryLoggingDataSource(target, props,
+            new QueryLoggerRuntime(new RecordingLogger(run.events)));
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("update users set name = 'a'");
+                statement.executeUpdate("update users set name = 'b'");
+                try {
+                    connection.commit();
+                    fail("expected SQLException");
+                } catch (SQLException expected) {
+                    assertEquals("08006", expected.getSQLState());
+                }
+                statement.executeUpdate("update users set name = 'c'");
+                connection.rollback();
+            }
+        }
+        verify(run.connection).rollback();
+        return run.events;
+    }
+
+    @Test
+    public void executeThenGetResultSetTracksRowsInBothModes() throws SQLException {
+        List<String> delegate = executeThenFetch(QueryLoggerProperties.WrapMode.DELEGATE);
+        List<String> proxy = executeThenFetch(QueryLoggerProperties.WrapMode.PROXY);
+
+        assertEquals(Arrays.asList(
+            "select id from users rows=2",
+            "update users set name = 'a'",
+            "select 2"), delegate);
+        assertEquals(delegate, proxy);
+    }
+
+    private static List<String> executeThenFetch(QueryLoggerProperties.WrapMode mode) throws SQLException {
+        Run run = new Run();
+        DataSource target = mock(DataSource.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(target.getConnection()).thenReturn(run.connection);
+        when(run.connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn("H2");
+        when(run.connection.createStatement()).thenReturn(run.statement);
+        when(run.statement.execute("select id from users")).thenReturn(true);
+        when(run.statement.execute("select 2")).thenReturn(true);
+        when(run.statement.getResultSet()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+
+        QueryLogger logger = mock(QueryLogger.class);
+        doAnswer(invocation -> {
+            QueryEvent event = invocation.getArgument(0);
+            run.events.add(event.getSql() + (event.hasResultSet() ? " rows=" + event.getRowsFetched() : ""));
+            return null;
+        }).when(logger).logEvent(any(QueryEvent.class));
+
+        QueryLoggerProperties props = new QueryLoggerProperties();
+        props.setWrapMode(mode);
+        props.setOnlySlow(false);
+        props.setLogThresholdMs(0);
+        props.setTrackResultSets(true);
+        QueryLoggingDataSource dataSource = new QueryLoggingDataSource(target, props, new QueryLoggerRuntime(logger));
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            assertTrue(statement.execute("select id from users"));
+            try (ResultSet rs = statement.getResultSet()) {
+                assertSame(rs, statement.getResultSet());
+                while (rs.next()) {
+                    rs.getLong(1);
+                }
+            }
+            assertFalse(statement.execute("update users set name = 'a'"));
+            assertTrue(statement.execute("select 2"));
+        }
+        return run.events;
+    }
+
+    private static Run run(QueryLoggerProperties.WrapMode mode) throws SQLException {
+        Run run = new Run();
+        DataSource target = mock(DataSource.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(target.getConnection()).thenReturn(run.connection);
+        when(run.connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn("H2");
+        when(run.connection.getAutoCommit()).thenReturn(true);
+        when(run.connection.createStatement()).thenReturn(run.statement);
+        when(run.connection.prepareStatement(anyString())).thenReturn(run.prepared);
+        when(run.connection.prepareCall(anyString())).thenReturn(run.callable);
+        when(run.statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(run.statement.execute("select broken")).thenThrow(new SQLException("syntax error", "42000", 42));
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(run.prepared.executeUpdate()).thenReturn(1);
+        when(run.prepared.executeBatch()).thenReturn(new int[] {1, 1});
+
+        QueryLoggerProperties props = new QueryLoggerProperties();
+        props.setWrapMode(mode);
+        props.setOnlySlow(false);
+        props.setLogThresholdMs(0);
+        props.setLogParams(true);
+        QueryLoggingDataSource dataSource = new QueryLoggingDataSource(target, props,
+            new QueryLoggerRuntime(new RecordingLogger(run.events)));
+
+        try (Connection connection = dataSource.getConnection()) {
+            run.connectionClass = connection.getClass();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("select 1");
+                try (ResultSet rs = statement.executeQuery("select id from users")) {
+                    while (rs.next()) {
+                        rs.getLong(1);
+                    }
+                }
+                try {
+                    statement.execute("select broken");
+                    fail("expected SQLException");
+                } catch (SQLException expected) {
+                    assertEquals("42000", expected.getSQLState());
+                }
+            }
+            try (PreparedStatement prepared = connection.prepareStatement("insert into users values (?, ?)")) {
+                prepared.setInt(1, 1);
+                prepared.setString(2, "alice");
+                prepared.executeUpdate();
+                prepared.setInt(1, 2);
+                prepared.executeUpdate();
+                prepared.setNull(2, Types.VARCHAR);
+                prepared.addBatch();
+                prepared.setInt(1, 3);
+                prepared.addBatch();
+                prepared.executeBatch();
+            }
+            try (CallableStatement callable = connection.prepareCall("{call refresh(?)}")) {
+                callable.setLong(1, 7L);
+                callable.execute();
+            }
+        }
+        return run;
+    }
+
+    private static final class Run {
+        final Connection connection = mock(Connection.class);
+        final Statement statement = mock(Statement.class);
+        final PreparedStatement prepared = mock(PreparedStatement.class);
+        final CallableStatement callable = mock(CallableStatement.class);
+        final List<String> events = Collections.synchronizedList(new ArrayList<>());
+        Class<?> connectionClass;
+    }
+
+    private static final class RecordingLogger implements QueryLogger {
+        private static final Pattern TRANSACTION =
+            Pattern.compile("event=sql_transaction outcome=(\\S+) .* statements=(\\d+)");
+
+        private final List<String> events;
+
+        RecordingLogger(List<String> events) {
+            this.events = events;
+        }
+
+        @Override
+        public void logQuery(String loggerName, String origin, double durationMs, boolean canceled, String sql,
+                             String params) {
+            events.add("query origin=" + origin + " canceled=" + canceled + " sql=" + sql + " params=" + params);
+        }
+
+        @Override
+        public void logQueryWithoutParams(String loggerName, String origin, double durationMs, boolean canceled,
+                                          String sql) {
+            events.add("query origin=" + origin + " canceled=" + canceled + " sql=" + sql);
+        }
+
+        @Override
+        public void logQueryError(String loggerName, String origin, double durationMs, boolean canceled,
+                                  String sql, String exceptionType, String errorMsg, String params) {
+            events.add("error origin=" + origin + " sql=" + sql + " ex=" + exceptionType + " msg=" + errorMsg
+                + " params=" + params);
+        }
+
+        @Override
+        public void logQueryErrorWithoutParams(String loggerName, String origin, double durationMs,
+                                               boolean canceled, String sql, String exceptionType,
+                                               String errorMsg) {
+            events.add("error origin=" + origin + " sql=" + sql + " ex=" + exceptionType + " msg=" + errorMsg);
+        }
+
+        @Override
+        public void logWarning(String message) {
+            Matcher matcher = TRANSACTION.matcher(message);
+            if (matcher.find()) {
+                events.add("transaction outcome=" + matcher.group(1) + " statements=" + matcher.group(2));
+            }
+        }
+
+        @Override
+        public void logInfo(String message) {
+        }
+
+        @Override
+        public void logError(String message) {
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.berkayd06.query_logger.journal;
+
+import com.berkayd06.query_logger.config.QueryLoggerProperties;
+import com.berkayd06.query_logger.core.QueryLoggerRuntime;
+import com.berkayd06.query_logger.core.QueryLoggingDataSource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class QueryJournalTest {
+
+    private static final int SMALL_SEGMENT = QueryJournal.HEADER_SIZE + QueryJournal.RECORD_SIZE * 16;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void roundTripsEveryRecordField() throws IOException {
+        File directory = folder.newFolder("journal");
+        QueryJournal journal = new QueryJournal(directory, 1 << 16, 4, 100);
+        journal.append(1_000L, 2_500_000L, "select * from users where id = ?", "NATIVE", 1, 0, 0, "{1:42}");
+        journal.append(2_000L, 7_000_000L, "insert into audit values (?)", "JPA", 3,
+            QueryJournal.FLAG_BATCH | QueryJournal.FLAG_FAILED, 3, null);
+        journal.append(3_000L, 9_000_000L, "select * from users where id = ?", "MONGODB", 0,
+            QueryJournal.FLAG_CANCELED | QueryJournal.FLAG_SAMPLED_OUT, 0, "{1:'ünï'}");
+        journal.close();
+
+        List<QueryJournalReader.Record> records = readAll(directory);
+        assertEquals(3, records.size());
+
+        QueryJournalReader.Record first = records.get(0);
+        assertEquals(1_000L, first.getTimestampMillis());
+        assertEquals(2_500_000L, first.getDurationNanos());
+        assertEquals("select * from users where id = ?", first.getSql());
+        assertEquals("NATIVE", first.getOrigin());
+        assertEquals(1L, first.getRows());
+        assertEquals("{1:42}", first.getParams());
+        assertFalse(first.isFailed() || first.isCanceled() || first.isBatch() || first.isSampledOut());
+
+        QueryJournalReader.Record second = records.get(1);
+        assertEquals("JPA", second.getOrigin());
+        assertTrue(second.isBatch());
+        assertTrue(second.isFailed());
+        assertEquals(3, second.getBatchSize());
+        assertNull(second.getParams());
+
+        QueryJournalReader.Record third = records.get(2);
+        assertEquals("MONGODB", third.getOrigin());
+        assertTrue(third.isCanceled());
+        assertTrue(third.isSampledOut());
+        assertEquals("{1:'ünï'}", third.getParams());
+        assertEquals(2, new QueryJournalReader(directory).getSqlCount());
+    }
+
+    @Test
+    public void rotatesSegmentsAndDropsTheOldest() throws IOException {
+        File directory = folder.newFolder("journal");
+        QueryJournal journal = new QueryJournal(directory, SMALL_SEGMENT, 3, 100);
+        for (int i = 0; i < 100; i++) {
+            journal.append(i + 1, i, "select " + (i % 5), "NATIVE", i, 0, 0, "{1:" + i + "}");
+        }
+        journal.close();
+
+        assertEquals(100L, journal.getWrittenCount());
+        assertEquals(0L, journal.getDroppedCount());
+        QueryJournalReader reader = new QueryJournalReader(directory);
+        assertEquals(3, reader.getSegments().size());
+        List<QueryJournalReader.Record> records = readAll(directory);
+        assertEquals(100 - 16 * (100 / 16 - 2), records.size());
+        QueryJournalReader.Record last = records.get(records.size() - 1);
+        assertEquals(100L, last.getTimestampMillis());
+        assertEquals("{1:99}", last.getParams());
+    }
+
+    @Test
+    public void reopensWithTheExistingDictionaryAndSegments() throws IOException {
+        File directory = folder.newFolder("journal");
+        QueryJournal first = new QueryJournal(directory, 1 << 16, 4, 100);
+        first.append(1L, 1L, "select 1", "NATIVE", 0, 0, 0, null);
+        first.close();
+        QueryJournal second = new QueryJournal(directory, 1 << 16, 4, 100);
+        second.append(2L, 2L, "select 1", "NATIVE", 0, 0, 0, null);
+        second.append(3L, 3L, "select 2", "NATIVE", 0, 0, 0, null);
+        second.close();
+
+        assertEquals(2, second.getSqlCount());
+        List<QueryJournalReader.Record> records = readAll(directory);
+        assertEquals(3, records.size());
+        assertEquals("select 1", records.get(1).getSql());
+        assertEquals("select 2", records.get(2).getSql());
+    }
+
+    @Test
+    public void skipsUnfilledSlotsWithoutStoppingTheScan() throws IOException {
+        File directory = folder.newFolder("journal");
+        QueryJournal journal = new QueryJournal(directory, 1 << 16, 4, 100);
+        for (int i = 0; i < 5; i++) {
+            journal.append(i + 1, i, "select 1", "NATIVE", 0, 0, 0, null);
+        }
+        journal.close();
+        File segment = QueryJournal.segmentFile(directory, new QueryJournalReader(directory).getSegments().get(0));
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, file.length());
+            int slot = QueryJournal.HEADER_SIZE + QueryJournal.RECORD_SIZE;
+            for (int i = 0; i < QueryJournal.RECORD_SIZE; i++) {
+                buffer.put(slot + i, (byte) 0);
+            }
+            buffer.force();
+        }
+
+        List<QueryJournalReader.Record> records = readAll(directory);
+        assertEquals(4, records.size());
+        assertEquals(5L, records.get(3).getTimestampMillis());
+    }
+
+    @Test
+    public void keepsWritingWhenAWriterIsInterrupted() throws Exception {
+        File directory = folder.newFolder("journal");
+        QueryJournal journal = new QueryJournal(directory, SMALL_SEGMENT * 4, 1_000, 100);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            boolean interrupted = t == 0;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    if (interrupted) {
+                        Thread.currentThread().interrupt();
+                    }
+                    journal.append(i + 1, i, "select ?", "NATIVE", 0, 0, 0, "{1:" + i + "}");
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        journal.close();
+
+        AtomicLong withParams = new AtomicLong();
+        long read = new QueryJournalReader(directory).read(null, record -> {
+            if (record.getParams() != null) {
+                withParams.incrementAndGet();
+            }
+            return true;
+        });
+        assertEquals(8_000L, journal.getWrittenCount());
+        assertEquals(8_000L, read);
+        assertEquals(8_000L, withParams.get());
+    }
+
+    @Test
+    public void stopsWhenTheHandlerReturnsFalse() throws IOException {
+        File directory = folder.newFolder("journal");
+        QueryJournal journal = new QueryJournal(directory, 1 << 16, 4, 100);
+        for (int i = 0; i < 10; i++) {
+            journal.append(i + 1, i * 1_000_000L, "select 1", "NATIVE", 0, 0, 0, null);
+        }
+        journal.close();
+
+        List<Long> seen = new ArrayList<>();
+        long matched = new QueryJournalReader(directory).read(record -> record.getDurationNanos() >= 3_000_000L,
+            record -> {
+                seen.add(record.getTimestampMillis());
+                return seen.size() < 2;
+            });
+        assertEquals(2L, matched);
+        assertEquals(4L, (long) seen.get(0));
+        assertEquals(5L, (long) seen.get(1));
+    }
+
+    @Test
+    public void perBeanJournalOpensWhenTheGlobalJournalIsOff() throws IOException, SQLException {
+        File directory = folder.newFolder("journal");
+        QueryLoggerProperties global = new QueryLoggerProperties();
+        QueryLoggerRuntime runtime = new QueryLoggerRuntime(global);
+        assertNull(runtime.getJournal());
+
+        QueryLoggerProperties reporting = new QueryLoggerProperties();
+        reporting.getJournal().setEnabled(true);
+        reporting.getJournal().setDirectory(directory.getPath());
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        QueryLoggingDataSource first = new QueryLoggingDataSource(target, reporting, runtime, "reporting");
+        QueryLoggingDataSource second = new QueryLoggingDataSource(target, reporting, runtime, "archive");
+
+        try (Connection c = first.getConnection(); Statement statement = c.createStatement()) {
+            statement.execute("select 1");
+        }
+        try (Connection c = second.getConnection(); Statement statement = c.createStatement()) {
+            statement.execute("select 2");
+        }
+        runtime.close();
+
+        List<QueryJournalReader.Record> records = readAll(directory);
+        assertEquals(2, records.size());
+        assertEquals("select 1", records.get(0).getSql());
+        assertEquals("select 2", records.get(1).getSql());
+    }
+
+    private static List<QueryJournalReader.Record> readAll(File directory) throws IOException {
+        List<QueryJournalReader.Record> records = new ArrayList<>();
+        new QueryJournalReader(directory).read(null, record -> {
+            records.add(record);
+            return true;
+        });
+        return records;
+    }
+}
@@ -0,0 +1,182 @@
+package com.berkayd06.query_logger.logging;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncQueryLoggerTest {
+
+    @Test
+    public void roundsCapacityUpToPowerOfTwo() {
+        try (AsyncQueryLogger logger = new AsyncQueryLogger(stream(new ByteArrayOutputStream()),
+                stream(new ByteArrayOutputStream()), 100, AsyncQueryLogger.OverflowPolicy.DROP)) {
+            assertEquals(128, logger.getCapacity());
+        }
+        try (AsyncQueryLogger logger = new AsyncQueryLogger(stream(new ByteArrayOutputStream()),
+                stream(new ByteArrayOutputStream()), 128, AsyncQueryLogger.OverflowPolicy.DROP)) {
+            assertEquals(128, logger.getCapacity());
+        }
+        assertEquals(2, AsyncQueryLogger.capacityFor(1));
+        assertEquals(2, AsyncQueryLogger.capacityFor(2));
+        assertEquals(4, AsyncQueryLogger.capacityFor(3));
+        assertEquals(1 << 30, AsyncQueryLogger.capacityFor(1 << 30));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveCapacity() {
+        AsyncQueryLogger.capacityFor(0);
+    }
+
+    @Test
+    public void idleWriterParksUntilAProducerSignals() throws InterruptedException {
+        AtomicReference<Thread> writerThread = new AtomicReference<>();
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        OutputStream recording = new OutputStream() {
+            @Override
+            public void write(int b) {
+                writerThread.set(Thread.currentThread());
+                captured.write(b);
+            }
+        };
+        try (AsyncQueryLogger logger = new AsyncQueryLogger(stream(recording), stream(new ByteArrayOutputStream()),
+                8, AsyncQueryLogger.OverflowPolicy.DROP)) {
+            logger.logInfo("first");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while ((writerThread.get() == null || writerThread.get().getState() != Thread.State.WAITING)
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(Thread.State.WAITING, writerThread.get().getState());
+
+            logger.logInfo("second");
+            while (lines(captured).size() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(2, lines(captured).size());
+        }
+    }
+
+    @Test
+    public void blockPolicyDeliversEveryEventInProducerOrder() throws InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AsyncQueryLogger logger = new AsyncQueryLogger(stream(out), stream(new ByteArrayOutputStream()), 16,
+            AsyncQueryLogger.OverflowPolicy.BLOCK);
+        int producers = 4;
+        int perProducer = 5_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int id = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    logger.logInfo(id + ":" + i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        logger.close();
+
+        int[] next = new int[producers];
+        int lines = 0;
+        for (String line : lines(out)) {
+            String message = line.substring(line.lastIndexOf(' ') + 1);
+            int colon = message.indexOf(':');
+            int producer = Integer.parseInt(message.substring(0, colon));
+            assertEquals(next[producer]++, Integer.parseInt(message.substring(colon + 1)));
+            lines++;
+        }
+        assertEquals(producers * perProducer, lines);
+        assertEquals(0L, logger.getDroppedCount());
+    }
+
+    @Test
+    public void dropPolicyCountsEventsThatDoNotFit() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        OutputStream blocking = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                captured.write(b, off, len);
+            }
+        };
+        AsyncQueryLogger logger = new AsyncQueryLogger(stream(blocking), stream(new ByteArrayOutputStream()), 4,
+            AsyncQueryLogger.OverflowPolicy.DROP);
+        logger.logInfo("first");
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        int offered = 50;
+        for (int i = 0; i < offered; i++) {
+            logger.logInfo("event " + i);
+        }
+        assertEquals(offered - logger.getCapacity(), logger.getDroppedCount());
+        release.countDown();
+        logger.close();
+        assertEquals(1 + logger.getCapacity(), lines(captured).size());
+    }
+
+    @Test
+    public void routesErrorsAndWarningsToTheErrorStream() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        AsyncQueryLogger logger = new AsyncQueryLogger(stream(out), stream(err), 8,
+            AsyncQueryLogger.OverflowPolicy.BLOCK);
+        logger.logQuery("app", "NATIVE", 1.5, false, "select 1", null);
+        logger.logInfo("info");
+        logger.logWarning("warning");
+        logger.logQueryError("app", "NATIVE", 2.0, false, "select x", "java.sql.SQLException", "boom", null);
+        logger.close();
+
+        List<String> outLines = lines(out);
+        List<String> errLines = lines(err);
+        assertEquals(2, outLines.size());
+        assertTrue(outLines.get(0).contains("select 1"));
+        assertTrue(outLines.get(1).endsWith("info"));
+        assertEquals(2, errLines.size());
+        assertTrue(errLines.get(0).endsWith("warning"));
+        assertTrue(errLines.get(1).contains("boom"));
+    }
+
+    private static PrintStream stream(OutputStream out) {
+        try {
+            return new PrintStream(out, false, StandardCharsets.UTF_8.name());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<String> lines(ByteArrayOutputStream out) {
+        List<String> lines = new ArrayList<>();
+        for (String line : new String(out.toByteArray(), StandardCharsets.UTF_8).split("\\R")) {
+            if (!line.isEmpty()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,88 @@
+package com.berkayd06.query_logger.sampling;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveSamplerTest {
+
+    @Test
+    public void allowsABurstUpToTheGlobalRate() {
+        AdaptiveSampler sampler = new AdaptiveSampler(10, 0, 0);
+        for (int i = 0; i < 10; i++) {
+            assertTrue("event " + i, sampler.tryAcquire("select ?"));
+        }
+        assertFalse(sampler.tryAcquire("select ?"));
+        assertEquals(11, sampler.getOfferedCount());
+        assertEquals(10, sampler.getKeptCount());
+    }
+
+    @Test
+    public void limitsEachFingerprintSeparately() {
+        AdaptiveSampler sampler = new AdaptiveSampler(1000, 2, 10);
+        assertTrue(sampler.tryAcquire("a"));
+        assertTrue(sampler.tryAcquire("a"));
+        assertFalse(sampler.tryAcquire("a"));
+        assertTrue(sampler.tryAcquire("b"));
+        assertTrue(sampler.tryAcquire("b"));
+        assertFalse(sampler.tryAcquire("b"));
+    }
+
+    @Test
+    public void fingerprintRejectionsDoNotConsumeGlobalCapacity() {
+        AdaptiveSampler sampler = new AdaptiveSampler(3, 1, 10);
+        assertTrue(sampler.tryAcquire("a"));
+        assertFalse(sampler.tryAcquire("a"));
+        assertFalse(sampler.tryAcquire("a"));
+        assertTrue(sampler.tryAcquire("b"));
+        assertTrue(sampler.tryAcquire("c"));
+        assertFalse(sampler.tryAcquire("d"));
+    }
+
+    @Test
+    public void fingerprintsBeyondTheLimitShareOnlyTheGlobalBucket() {
+        AdaptiveSampler sampler = new AdaptiveSampler(5, 1, 1);
+        assertTrue(sampler.tryAcquire("tracked"));
+        assertFalse(sampler.tryAcquire("tracked"));
+        for (int i = 0; i < 4; i++) {
+            assertTrue(sampler.tryAcquire("untracked"));
+        }
+        assertFalse(sampler.tryAcquire("untracked"));
+    }
+
+    @Test
+    public void refillsAtTheConfiguredRate() throws InterruptedException {
+        AdaptiveSampler sampler = new AdaptiveSampler(10, 0, 0);
+        while (sampler.tryAcquire(null)) {
+        }
+        Thread.sleep(350);
+        int kept = 0;
+        for (int i = 0; i < 10; i++) {
+            if (sampler.tryAcquire(null)) {
+                kept++;
+            }
+        }
+        assertTrue("kept " + kept, kept >= 2 && kept <= 7);
+    }
+
+    @Test
+    public void keepsNothingWhenTheRateIsZero() {
+        AdaptiveSampler sampler = new AdaptiveSampler(0, 0, 0);
+        assertFalse(sampler.tryAcquire("a"));
+        assertEquals(0, sampler.getKeptCount());
+    }
+
+    @Test
+    public void reportsTheEffectiveRateOfThePreviousWindow() throws InterruptedException {
+        AdaptiveSampler sampler = new AdaptiveSampler(5, 0, 0);
+        assertEquals(1.0, sampler.getEffectiveRate(), 0.0);
+        for (int i = 0; i < 20; i++) {
+            sampler.tryAcquire("x");
+        }
+        Thread.sleep(1_100);
+        sampler.tryAcquire("x");
+        assertEquals(0.25, sampler.getEffectiveRate(), 0.0001);
+    }
+}
@@ -0,0 +1,91 @@
+package com.berkayd06.query_logger.util;
+
+import java.util.regex.Pattern;
+
+final class LegacySqlFormatter {
+
+    private static final Pattern MULTI_WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern COMMA_WHITESPACE = Pattern.compile("\\s*,\\s*");
+    private static final Pattern PAREN_OPEN = Pattern.compile("\\s*\\(\\s*");
+    private static final Pattern PAREN_CLOSE = Pattern.compile("\\s*\\)\\s*");
+    private static final Pattern EQUALS_WHITESPACE = Pattern.compile("\\s*=\\s*");
+    private static final Pattern SEMICOLON_WHITESPACE = Pattern.compile("\\s*;\\s*");
+    private static final Pattern[] CLAUSES = {
+        Pattern.compile("\\s+(SELECT)\\s+", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\s+(FROM)\\s+", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\s+(WHERE)\\s+", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\s+(JOIN|INNER JOIN|LEFT JOIN|RIGHT JOIN|OUTER JOIN)\\s+", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\s+(GROUP BY)\\s+", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\s+(ORDER BY)\\s+", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\s+(HAVING)\\s+", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\s+(UNION|UNION ALL)\\s+", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\s+(INSERT INTO)\\s+", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\s+(UPDATE)\\s+", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\s+(DELETE FROM)\\s+", Pattern.CASE_INSENSITIVE)
+    };
+    private static final Pattern AND_OR_PATTERN = Pattern.compile("\\s+(AND|OR)\\s+", Pattern.CASE_INSENSITIVE);
+    private static final Pattern MULTI_NEWLINE = Pattern.compile("\n+");
+
+    static String format(String sql) {
+        if (sql == null || sql.isEmpty()) {
+            return sql;
+        }
+        String trimmed = sql.trim();
+        if (trimmed.isEmpty()) {
+            return trimmed;
+        }
+        int len = trimmed.length();
+        StringBuilder sb = new StringBuilder(len + 50);
+        int pos = 0;
+        while (pos < len) {
+            char c = trimmed.charAt(pos);
+            if (Character.isLetter(c)) {
+                int wordEnd = pos;
+                while (wordEnd < len && Character.isLetterOrDigit(trimmed.charAt(wordEnd))) {
+                    wordEnd++;
+                }
+                String word = trimmed.substring(pos, wordEnd);
+                String upperWord = word.toUpperCase();
+                sb.append(isKeyword(upperWord) ? upperWord : word);
+                pos = wordEnd;
+            } else {
+                sb.append(c);
+                pos++;
+            }
+        }
+        String formatted = sb.toString();
+        formatted = MULTI_WHITESPACE.matcher(formatted).replaceAll(" ");
+        formatted = COMMA_WHITESPACE.matcher(formatted).replaceAll(", ");
+        formatted = PAREN_OPEN.matcher(formatted).replaceAll(" (");
+        formatted = PAREN_CLOSE.matcher(formatted).replaceAll(") ");
+        formatted = EQUALS_WHITESPACE.matcher(formatted).replaceAll(" = ");
+        formatted = SEMICOLON_WHITESPACE.matcher(formatted).replaceAll(";");
+        for (Pattern clause : CLAUSES) {
+            formatted = clause.matcher(formatted).replaceAll("\n$1 ");
+        }
+        formatted = AND_OR_PATTERN.matcher(formatted).replaceAll("\n  $1 ");
+        formatted = MULTI_NEWLINE.matcher(formatted).replaceAll("\n");
+        return formatted.trim();
+    }
+
+    private static boolean isKeyword(String word) {
+        switch (word) {
+            case "SELECT": case "FROM": case "WHERE": case "JOIN":
+            case "INNER": case "LEFT": case "RIGHT": case "OUTER":
+            case "ON": case "GROUP": case "BY": case "ORDER":
+            case "HAVING": case "INSERT": case "INTO": case "VALUES":
+            case "UPDATE": case "SET": case "DELETE": case "CREATE":
+            case "ALTER": case "DROP": case "INDEX": case "TABLE":
+            case "DATABASE": case "AND": case "OR": case "NOT":
+            case "IN": case "LIKE": case "BETWEEN": case "IS":
+            case "NULL": case "AS": case "ASC": case "DESC":
+            case "LIMIT": case "OFFSET": case "UNION": case "ALL":
+            case "COUNT": case "SUM": case "AVG": case "MAX":
+            case "MIN": case "DISTINCT": case "CASE": case "WHEN":
+            case "THEN": case "ELSE": case "END":
+                return true;
+            default:
+                return false;
+        }
+    }
+}
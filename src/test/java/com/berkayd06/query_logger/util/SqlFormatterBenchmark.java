@@ -0,0 +1,59 @@
+package com.berkayd06.query_logger.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlFormatterBenchmark {
+
+    @Param({"point", "join", "insert", "report"})
+    public String shape;
+
+    private String sql;
+
+    @Setup
+    public void setUp() {
+        switch (shape) {
+            case "point":
+                sql = "select * from users where id = ?";
+                break;
+            case "join":
+                sql = "SELECT u.id, u.name FROM users u INNER JOIN orders o ON o.user_id = u.id "
+                    + "WHERE o.total > 10 AND u.active = 1";
+                break;
+            case "insert":
+                sql = "insert into audit (id, actor, action, payload, created_at) values (?, ?, ?, ?, ?)";
+                break;
+            default:
+                sql = "select o.status, count(*), sum(o.total) from orders o left join customers c on c.id = o.customer_id "
+                    + "where o.created_at between ? and ? and c.region in ('eu', 'us') or o.flagged = 1 "
+                    + "group by o.status having count(*) > 5 order by 2 desc";
+        }
+    }
+
+    @Benchmark
+    public String current() {
+        return SqlFormatter.format(sql);
+    }
+
+    @Benchmark
+    public String legacy() {
+        return LegacySqlFormatter.format(sql);
+    }
+}
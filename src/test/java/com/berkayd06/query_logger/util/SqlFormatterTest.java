@@ -0,0 +1,78 @@
+package com.berkayd06.query_logger.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class SqlFormatterTest {
+
+    private static final String[] QUERIES = {
+        "select * from users where id = ?",
+        "SELECT u.id, u.name FROM users u INNER JOIN orders o ON o.user_id = u.id WHERE o.total > 10 AND u.active = 1",
+        "  select   count(*)\n\tfrom orders group by status having count(*) > 5 order by 1 desc  ",
+        "insert into audit (id, msg) values (?, ?)",
+        "update users set name = ?, email = ? where id = ? or email is null",
+        "delete from sessions where expires_at < ?",
+        "select a from t union all select b from u union select c from v",
+        "select * from t left join u on t.id=u.id right join v on v.id = u.id outer join w on 1=1",
+        "select case when x = 1 then 'a' else 'b' end as label from t;",
+        "select id from t where name like 'a%' and id between 1 and 10 or id in (1,2,3)",
+        "with recent as (select * from t where ts > now()) select distinct id from recent limit 10 offset 5",
+        "SELECT * FROM t WHERE a = b",
+        "select ((a)) , ( b ) from t where c=(select max(d) from e);",
+        "selectfrom from_table where wherever = 1",
+        "",
+        "   ",
+        "x",
+        "SeLeCt MiN(x), MaX(y), AvG(z), SuM(w) FrOm t OrDeR bY x AsC",
+        "create table t (id int, name varchar(20)); drop index i; alter table t add c int",
+    };
+
+    private static final String[] FRAGMENTS = {
+        "select", "SELECT", "from", "where", "join", "inner join", "left join", "group by", "order by",
+        "having", "union", "union all", "insert into", "update", "delete from", "and", "or", "not", "on",
+        "set", "values", "as", "t", "u.id", "x1", "?", "'s'", "=", ",", "(", ")", ";", " ", "  ", "\n", "\t",
+        "1", "count", "null", "is", "in", "like", "case", "when", "then", "else", "end", "ünïcode"
+    };
+
+    @Test
+    public void formatsRepresentativeQueriesLikeTheRegexImplementation() {
+        for (String sql : QUERIES) {
+            assertEquals(sql, LegacySqlFormatter.format(sql), SqlFormatter.format(sql));
+        }
+    }
+
+    @Test
+    public void formatsRandomFragmentsLikeTheRegexImplementation() {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            sb.setLength(0);
+            int parts = 1 + random.nextInt(24);
+            for (int p = 0; p < parts; p++) {
+                sb.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+                if (random.nextInt(3) > 0) {
+                    sb.append(' ');
+                }
+            }
+            String sql = sb.toString();
+            assertEquals(sql, LegacySqlFormatter.format(sql), SqlFormatter.format(sql));
+        }
+    }
+
+    @Test
+    public void copiesLiteralsQuotedIdentifiersAndCommentsVerbatim() {
+        assertEquals("SELECT 'it''s = fine, (really) and or' \"from\", `a,b`\nFROM dual /* x=1, where */",
+            SqlFormatter.format("select 'it''s = fine, (really) and or' \"from\", `a,b` from dual /* x=1, where */"));
+        assertEquals("SELECT a -- where x=1\nFROM t",
+            SqlFormatter.format("select a -- where x=1\n from t"));
+    }
+
+    @Test
+    public void returnsNullAndEmptyUnchanged() {
+        assertEquals(null, SqlFormatter.format(null));
+        assertEquals("", SqlFormatter.format(""));
+    }
+}